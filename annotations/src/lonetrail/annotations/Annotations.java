@@ -25,6 +25,17 @@ public class Annotations {
         boolean pooled() default false;
     }
 
+    /**
+     * Generates a {@code SpatialHash} holding every added instance of this entity definition, kept up to date from
+     * {@code updateLastPosition()}. Requires the entity to have a hitbox.
+     */
+    @Target({ElementType.FIELD, ElementType.TYPE})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Indexed {
+        /** @return The size of every grid cell, in world units */
+        float cellSize() default 64f;
+    }
+
     /** Indicates that this content's entity will be the one that is pointed, or if it's the type it will get mapped to the entity mapping */
     @Target({ElementType.FIELD, ElementType.TYPE})
     @Retention(RetentionPolicy.SOURCE)
@@ -185,6 +196,15 @@ public class Annotations {
         boolean left() default false;
     }
 
+    /**
+     * Generates {@code copy} and {@code copyInto} methods for this class in {@code Copies}, assigning every public
+     * non-transient field one by one. Arrays and {@code Seq}s are copied rather than shared, and their elements are
+     * copied too if they're {@link Copyable} themselves.
+     */
+    @Target(ElementType.TYPE)
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Copyable {}
+
     /** Indicates that a field will be interpolated when synced. */
     @Target({ElementType.FIELD})
     @Retention(RetentionPolicy.SOURCE)
@@ -206,6 +226,19 @@ public class Annotations {
     @Retention(RetentionPolicy.SOURCE)
     public @interface NoSync {}
 
+    /** Indicates that a field is accessed every tick; generated entities declare these before any other field */
+    @Target(ElementType.FIELD)
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Hot {}
+
+    /**
+     * Indicates that a field's initializer is only evaluated on first access, through a generated getter. Component
+     * code accessing the field is rewritten to use that getter, except for assignments and {@code == null} checks.
+     */
+    @Target(ElementType.FIELD)
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Lazy {}
+
     /** Indicates that the field annotated with this came from another component class */
     @Target(ElementType.FIELD)
     @Retention(RetentionPolicy.SOURCE)
@@ -294,6 +327,13 @@ public class Annotations {
         Class<?> value();
     }
 
+    /** States that this method is only relevant on types where another component {@link Import}s a certain field */
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface ExtendImport {
+        String value();
+    }
+
     /** Resolves how to handle multiple non-void method specifications. */
     @Target(ElementType.METHOD)
     @Retention(RetentionPolicy.SOURCE)
@@ -443,4 +483,15 @@ public class Annotations {
         /** @return The outline radius, only valid if {@link #outline()} is true */
         int outlineRadius() default 4;
     }
+
+    /**
+     * Generates a {@code <Type>Regions} class that finds every region named after a prefix and one of these suffixes in
+     * one pass, with an index constant per suffix
+     */
+    @Target(ElementType.TYPE)
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface RegionSuffixes {
+        /** @return The suffixes, without the leading dash */
+        String[] value();
+    }
 }
@@ -31,6 +31,8 @@ import static javax.lang.model.type.TypeKind.*;
 
 public abstract class BaseProcessor extends AbstractProcessor {
     public static final String packageName = "lonetrail.gen";
+    /** Runtime class that generated loading code reports its timings into. */
+    public static final String profilerName = "lonetrail.core.StartupProfiler";
 
     static final Unsafe unsafe;
 
@@ -290,6 +292,18 @@ public abstract class BaseProcessor extends AbstractProcessor {
 
     public abstract void process(RoundEnvironment roundEnv) throws Exception;
 
+    /** @return The processor option passed with {@code -A<key>=<value>}, or {@code def} if it isn't specified */
+    public String option(String key, String def) {
+        String value = processingEnv.getOptions().get(key);
+        return value == null ? def : value;
+    }
+
+    /** @return Whether the boolean processor option is specified and isn't {@code false} */
+    public boolean option(String key) {
+        String value = processingEnv.getOptions().get(key);
+        return value != null && !value.equals("false");
+    }
+
     public void write(TypeSpec spec) throws Exception {
         write(spec, null);
     }
@@ -339,6 +353,11 @@ public abstract class BaseProcessor extends AbstractProcessor {
         }
     }
 
+    /** @return A build report file, in {@code build/reports/lonetrail/} of the root project */
+    public Fi reportFile(String name) {
+        return rootDir.child("build/reports/lonetrail/" + name);
+    }
+
     public TypeElement toEl(TypeMirror t) {
         return (TypeElement) types.asElement(t);
     }
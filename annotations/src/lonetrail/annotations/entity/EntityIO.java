@@ -39,7 +39,7 @@ public class EntityIO {
         this.write = write;
 
         for (VariableElement e : sel(fields)) {
-            io(proc, e.asType().toString(), "this." + BaseProcessor.simpleName(e) + (write ? "" : " = "));
+            field(proc, e, "this." + BaseProcessor.simpleName(e) + (write ? "" : " = "));
         }
     }
 
@@ -49,7 +49,7 @@ public class EntityIO {
 
         if (write) {
             for (VariableElement e : sel(allFields)) {
-                io(proc, e.asType().toString(), "this." + BaseProcessor.simpleName(e));
+                field(proc, e, "this." + BaseProcessor.simpleName(e));
             }
         } else {
             st("if(lastUpdated != 0) updateSpacing = $T.timeSinceMillis(lastUpdated)", Time.class);
@@ -66,7 +66,7 @@ public class EntityIO {
                     st(BaseProcessor.simpleName(e) + "_LAST_" + " = this." + BaseProcessor.simpleName(e));
                 }
 
-                io(proc, e.asType().toString(), "this." + (sf ? BaseProcessor.simpleName(e) + "_TARGET_" : BaseProcessor.simpleName(e)) + " = ");
+                field(proc, e, "this." + (sf ? BaseProcessor.simpleName(e) + "_TARGET_" : BaseProcessor.simpleName(e)) + " = ");
 
                 if (sl) {
                     ncont("else");
@@ -129,6 +129,38 @@ public class EntityIO {
         econt();
     }
 
+    /** Serializes a component field, only allocating {@link Lazy} ones if there's something to read into them. */
+    public void field(BaseProcessor proc, VariableElement e, String field) {
+        String type = e.asType().toString();
+        String name = BaseProcessor.simpleName(e);
+        boolean collection = type.startsWith("arc.struct.Seq<") || type.startsWith("arc.struct.Queue<");
+
+        if (BaseProcessor.annotation(e, Lazy.class) == null || type.endsWith("[]")) {
+            io(proc, type, field);
+        } else if (collection && write) {
+            cont("if(this.$L == null)", name);
+            s("i", "0");
+            ncont("else");
+            io(proc, type, field);
+            econt();
+        } else if (collection) {
+            String generic = type.substring(type.indexOf("<") + 1, type.indexOf(">"));
+            String lenf = name + "_LENGTH";
+            String temp = name + "_ITEM";
+
+            s("i", "int " + lenf + " = ");
+            st("if($L != 0) this.$L()", lenf, name);
+            st("if(this.$L != null) this.$L.clear()", name, name);
+            cont("for(int INDEX = 0; INDEX < $L; INDEX ++)", lenf);
+            io(proc, generic, generic + " " + temp + " = ");
+            st("if($L != null) this.$L.add($L)", temp, name, temp);
+            econt();
+        } else {
+            st("this.$L()", name);
+            io(proc, type, field);
+        }
+    }
+
     public void io(BaseProcessor proc, String type, String field) {
         type = type.replace("mindustry.gen.", "").replace("lonetrail.gen.", "");
 
@@ -7,6 +7,7 @@ import arc.util.*;
 import arc.util.pooling.Pool.*;
 import com.squareup.javapoet.*;
 import com.sun.source.tree.*;
+import com.sun.tools.javac.tree.*;
 import com.sun.tools.javac.tree.JCTree.*;
 import lonetrail.annotations.Annotations.*;
 import lonetrail.annotations.Annotations.Resolve.*;
@@ -19,11 +20,19 @@ import mindustry.type.*;
 import javax.annotation.processing.*;
 import javax.lang.model.element.*;
 import javax.lang.model.type.*;
+import java.io.*;
 import java.util.*;
 
 import static javax.lang.model.type.TypeKind.*;
 
 public class EntityProcessor extends BaseProcessor {
+    /** Processor option; wraps component blocks of {@link #timedMethods} in {@code EntityMetrics} timers. */
+    public static final String metricsOption = "lonetrail.entityMetrics";
+    /** Void parameterless methods whose component blocks get timed if {@link #metricsOption} is set. */
+    static final ObjectSet<String> timedMethods = ObjectSet.with("update", "draw", "remove");
+    /** Processor option; estimated bytecode size over which component blocks get outlined into private helpers. */
+    public static final String splitOption = "lonetrail.splitThreshold";
+
     Seq<TypeElement> comps = new Seq<>();
     Seq<TypeElement> baseComps = new Seq<>();
     Seq<Element> pointers = new Seq<>();
@@ -42,6 +51,23 @@ public class EntityProcessor extends BaseProcessor {
     ObjectMap<TypeElement, String> groups;
     ClassSerializer serializer;
 
+    boolean metrics;
+    Seq<String> metricSlots = new Seq<>();
+    /** First metric slot of the definition being generated, which its blocks record relative to. */
+    int metricBase;
+    /** Generated classes with timed blocks, and the first metric slot of each. */
+    Seq<String> metricClasses = new Seq<>();
+    IntSeq metricBases = new IntSeq();
+
+    int splitThreshold;
+    MethodSizes sizes = new MethodSizes();
+    FieldLayouts layouts = new FieldLayouts();
+
+    /** Simple names of every superclass in the compiled sources; generated classes not in here are emitted as {@code final}. */
+    ObjectSet<String> extended = new ObjectSet<>();
+    /** Names of every {@link Lazy} component field. */
+    ObjectSet<String> lazyFields = new ObjectSet<>();
+
     {
         rounds = 3;
     }
@@ -54,6 +80,10 @@ public class EntityProcessor extends BaseProcessor {
         defs.addAll(roundEnv.getElementsAnnotatedWith(EntityDef.class));
         pointers.addAll(roundEnv.getElementsAnnotatedWith(EntityPoint.class));
 
+        for (Element e : roundEnv.getRootElements()) {
+            if (e instanceof TypeElement) collectExtended((TypeElement) e);
+        }
+
         for (ExecutableElement e : (Set<ExecutableElement>) roundEnv.getElementsAnnotatedWith(Insert.class)) {
             if (!e.getParameters().isEmpty())
                 throw new IllegalStateException("All @Insert methods must not have parameters");
@@ -86,6 +116,9 @@ public class EntityProcessor extends BaseProcessor {
 
         if (round == 1) {
             serializer = TypeIOResolver.resolve(this);
+            metrics = option(metricsOption);
+            splitThreshold = Strings.parseInt(option(splitOption, ""), MethodSizes.hugeMethodLimit);
+
             groups = ObjectMap.of(
                     toComp(Entityc.class), "all",
                     toComp(Playerc.class), "player",
@@ -108,10 +141,21 @@ public class EntityProcessor extends BaseProcessor {
             }
 
             for (TypeElement comp : comps) {
+                for (VariableElement var : vars(comp)) {
+                    if (annotation(var, Lazy.class) != null) lazyFields.add(simpleName(var));
+                }
+            }
+
+            for (TypeElement comp : comps) {
+                ObjectSet<String> lazy = vars(comp)
+                        .select(v -> annotation(v, Lazy.class) != null || (annotation(v, Import.class) != null && lazyFields.contains(simpleName(v))))
+                        .map(BaseProcessor::simpleName)
+                        .asSet();
+
                 for (ExecutableElement m : methods(comp)) {
                     if (is(m, Modifier.ABSTRACT, Modifier.NATIVE)) continue;
 
-                    methodBlocks.put(descString(m), procBlock(trees.getTree(m).getBody().toString()));
+                    methodBlocks.put(descString(m), procBlock(lazyAccess(m, lazy)));
                 }
 
                 for (VariableElement var : vars(comp)) {
@@ -122,6 +166,7 @@ public class EntityProcessor extends BaseProcessor {
                 }
 
                 imports.put(interfaceName(comp), getImports(comp));
+
                 Seq<TypeElement> depends = getDependencies(comp);
 
                 EntityComponent compAnno = annotation(comp, EntityComponent.class);
@@ -227,6 +272,7 @@ public class EntityProcessor extends BaseProcessor {
             ObjectMap<String, Element> usedNames = new ObjectMap<>();
             for (Element def : defs) {
                 EntityDef ann = annotation(def, EntityDef.class);
+                Indexed indexed = annotation(def, Indexed.class);
 
                 Seq<TypeElement> defComps = elements(ann::value)
                         .map(t -> inters.find(i -> simpleName(i).equals(simpleName(t))))
@@ -280,6 +326,7 @@ public class EntityProcessor extends BaseProcessor {
 
                 if (usedNames.containsKey(name)) continue;
 
+                metricBase = metricSlots.size;
                 TypeSpec.Builder builder = TypeSpec.classBuilder(name)
                         .addModifiers(Modifier.PUBLIC)
                         .addAnnotation(
@@ -292,6 +339,11 @@ public class EntityProcessor extends BaseProcessor {
                 Seq<VariableElement> allFields = new Seq<>();
                 Seq<FieldSpec> allFieldSpecs = new Seq<>();
 
+                // Declared after every component is processed, so @Hot fields can come first. Serialization still uses `allFields`.
+                Seq<FieldSpec> declared = new Seq<>();
+                Seq<FieldSpec> layoutFields = new Seq<>();
+                ObjectSet<FieldSpec> hotFields = new ObjectSet<>();
+
                 boolean isSync = defComps.contains(s -> simpleName(s).contains("Sync"));
 
                 ObjectMap<String, Seq<ExecutableElement>> ins = new ObjectMap<>();
@@ -326,7 +378,12 @@ public class EntityProcessor extends BaseProcessor {
                         if (is(field, Modifier.TRANSIENT)) fbuilder.addModifiers(Modifier.TRANSIENT);
                         if (is(field, Modifier.VOLATILE)) fbuilder.addModifiers(Modifier.VOLATILE);
 
-                        if (varInitializers.containsKey(descString(field))) {
+                        boolean lazy = annotation(field, Lazy.class) != null;
+                        if (lazy && (is(field, Modifier.STATIC) || !varInitializers.containsKey(descString(field)))) {
+                            throw new IllegalStateException("@Lazy field '" + simpleName(field) + "' of component '" + simpleName(comp) + "' must be an instance field with an initializer");
+                        }
+
+                        if (!lazy && varInitializers.containsKey(descString(field))) {
                             fbuilder.initializer(varInitializers.get(descString(field)));
                         }
 
@@ -342,7 +399,22 @@ public class EntityProcessor extends BaseProcessor {
                         boolean isVisible = !is(field, Modifier.STATIC) && !is(field, Modifier.PRIVATE) && annotation(field, ReadOnly.class) == null;
 
                         if (!isShadowed || !isVisible) {
-                            builder.addField(spec);
+                            declared.add(spec);
+                        }
+
+                        boolean hot = annotation(field, Hot.class) != null;
+                        if (hot) hotFields.add(spec);
+                        layoutFields.add(spec);
+
+                        if (lazy) {
+                            builder.addMethod(
+                                    MethodSpec.methodBuilder(spec.name)
+                                            .addModifiers(is(field, Modifier.PRIVATE) ? Modifier.PRIVATE : Modifier.PUBLIC)
+                                            .returns(spec.type)
+                                            .addStatement("if($L == null) $L = $L", spec.name, spec.name, varInitializers.get(descString(field)))
+                                            .addStatement("return $L", spec.name)
+                                            .build()
+                            );
                         }
 
                         specVariables.put(spec, field);
@@ -355,8 +427,13 @@ public class EntityProcessor extends BaseProcessor {
                                 throw new IllegalStateException("All SyncFields must be of type float");
 
                             syncedFields.add(field);
-                            builder.addField(FieldSpec.builder(TypeName.FLOAT, simpleName(field) + "_TARGET_").addModifiers(Modifier.TRANSIENT, Modifier.PRIVATE).build());
-                            builder.addField(FieldSpec.builder(TypeName.FLOAT, simpleName(field) + "_LAST_").addModifiers(Modifier.TRANSIENT, Modifier.PRIVATE).build());
+                            for (String suffix : new String[]{"_TARGET_", "_LAST_"}) {
+                                FieldSpec sync = FieldSpec.builder(TypeName.FLOAT, simpleName(field) + suffix).addModifiers(Modifier.TRANSIENT, Modifier.PRIVATE).build();
+                                if (hot) hotFields.add(sync);
+
+                                declared.add(sync);
+                                layoutFields.add(sync);
+                            }
                         }
                     }
 
@@ -365,6 +442,28 @@ public class EntityProcessor extends BaseProcessor {
                     }
                 }
 
+                if (indexed != null) {
+                    if (!methods.containsKey("updateLastPosition()")) {
+                        throw new IllegalStateException("@Indexed entity '" + name + "' must have a hitbox to keep its index up to date");
+                    }
+
+                    ClassName hash = ClassName.get("lonetrail.entities", "SpatialHash");
+                    builder.addField(
+                            FieldSpec.builder(hash, "INDEX_")
+                                    .addJavadoc("Every added instance of this class, by ID and position.")
+                                    .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                                    .initializer("new $T($Lf)", hash, indexed.cellSize())
+                                    .build()
+                    );
+                    FieldSpec slot = FieldSpec.builder(TypeName.INT, "INDEX_SLOT_").addModifiers(Modifier.PRIVATE, Modifier.TRANSIENT).initializer("-1").build();
+                    declared.add(slot);
+                    layoutFields.add(slot);
+                }
+
+                declared.sort(Structs.comparingInt(f -> hotFields.contains(f) ? 0 : 1));
+                for (FieldSpec spec : declared) builder.addField(spec);
+                layouts.add(name, layoutFields, hotFields);
+
                 if (!methods.containsKey("toString()")) {
                     builder.addMethod(
                             MethodSpec.methodBuilder("toString")
@@ -451,6 +550,10 @@ public class EntityProcessor extends BaseProcessor {
                         mbuilder.addParameter(tName(var), simpleName(var));
                     }
 
+                    String timed = metrics && timedMethods.contains(simpleName(first)) && first.getReturnType().getKind() == VOID && first.getParameters().isEmpty()
+                            ? name + "#" + simpleName(first)
+                            : null;
+
                     boolean writeBlock = first.getReturnType().getKind() == VOID && entry.value.size > 1;
 
                     if ((is(entry.value.first(), Modifier.ABSTRACT) || is(entry.value.first(), Modifier.NATIVE)) && entry.value.size == 1 && annotation(entry.value.first(), InternalImpl.class) == null) {
@@ -501,7 +604,7 @@ public class EntityProcessor extends BaseProcessor {
                             }
                         }
 
-                        boolean firstc = append(mbuilder, defComps, bypass, inserts, methodWrappers, writeBlock);
+                        boolean firstc = append(mbuilder, defComps, bypass, inserts, methodWrappers, writeBlock, null, null);
                         if (!firstc) mbuilder.addCode(lnew());
 
                         mbuilder.addStatement("if($Ladded) return", simpleName(first).equals("add") ? "" : "!");
@@ -509,6 +612,15 @@ public class EntityProcessor extends BaseProcessor {
                         for (String group : defGroups) {
                             mbuilder.addStatement("Groups.$L.$L(this)", group, simpleName(first));
                         }
+
+                        if (indexed != null) {
+                            if (simpleName(first).equals("add")) {
+                                mbuilder.addStatement("INDEX_SLOT_ = INDEX_.insert(id, x, y)");
+                            } else {
+                                mbuilder.addStatement("INDEX_.remove(INDEX_SLOT_, id)");
+                                mbuilder.addStatement("INDEX_SLOT_ = -1");
+                            }
+                        }
                         mbuilder.addCode(lnew());
                     }
 
@@ -536,43 +648,69 @@ public class EntityProcessor extends BaseProcessor {
                     allFields.sortComparing(BaseProcessor::simpleName);
                     syncedFields.sortComparing(BaseProcessor::simpleName);
 
+                    // Serialization is generated apart first, so that it counts towards the method's size and can be outlined too.
+                    MethodSpec.Builder iobuilder = MethodSpec.methodBuilder(simpleName(first) + "_io_").addModifiers(Modifier.PRIVATE)
+                            .addParameters(mbuilder.parameters)
+                            .returns(TypeName.VOID);
+
                     if (hasIO) {
                         if (simpleName(first).equals("read") || simpleName(first).equals("write")) {
-                            io.write(this, mbuilder, simpleName(first).equals("write"), allFields);
+                            io.write(this, iobuilder, simpleName(first).equals("write"), allFields);
                         }
 
                         if (simpleName(first).equals("readSync") || simpleName(first).equals("writeSync")) {
-                            io.writeSync(this, mbuilder, simpleName(first).equals("writeSync"), syncedFields, allFields);
+                            io.writeSync(this, iobuilder, simpleName(first).equals("writeSync"), syncedFields, allFields);
                         }
 
                         if (simpleName(first).equals("readSyncManual") || simpleName(first).equals("writeSyncManual")) {
-                            io.writeSyncManual(mbuilder, simpleName(first).equals("writeSyncManual"), syncedFields);
+                            io.writeSyncManual(iobuilder, simpleName(first).equals("writeSyncManual"), syncedFields);
                         }
 
                         if (simpleName(first).equals("interpolate")) {
-                            io.writeInterpolate(mbuilder, syncedFields);
+                            io.writeInterpolate(iobuilder, syncedFields);
                         }
 
                         if (simpleName(first).equals("snapSync")) {
-                            mbuilder.addStatement("updateSpacing = 16");
-                            mbuilder.addStatement("lastUpdated = $T.millis()", Time.class);
+                            iobuilder.addStatement("updateSpacing = 16");
+                            iobuilder.addStatement("lastUpdated = $T.millis()", Time.class);
                             for (VariableElement field : syncedFields) {
-                                mbuilder.addStatement("$L = $L", simpleName(field) + "_LAST_", simpleName(field) + "_TARGET_");
-                                mbuilder.addStatement("$L = $L", simpleName(field), simpleName(field) + "_TARGET_");
+                                iobuilder.addStatement("$L = $L", simpleName(field) + "_LAST_", simpleName(field) + "_TARGET_");
+                                iobuilder.addStatement("$L = $L", simpleName(field), simpleName(field) + "_TARGET_");
                             }
                         }
 
                         if (simpleName(first).equals("snapInterpolation")) {
-                            mbuilder.addStatement("updateSpacing = 16");
-                            mbuilder.addStatement("lastUpdated = $T.millis()", Time.class);
+                            iobuilder.addStatement("updateSpacing = 16");
+                            iobuilder.addStatement("lastUpdated = $T.millis()", Time.class);
                             for (VariableElement field : syncedFields) {
-                                mbuilder.addStatement("$L = $L", simpleName(field) + "_LAST_", simpleName(field));
-                                mbuilder.addStatement("$L = $L", simpleName(field) + "_TARGET_", simpleName(field));
+                                iobuilder.addStatement("$L = $L", simpleName(field) + "_LAST_", simpleName(field));
+                                iobuilder.addStatement("$L = $L", simpleName(field) + "_TARGET_", simpleName(field));
                             }
                         }
                     }
 
-                    boolean firstc = append(mbuilder, defComps, entry.value, inserts, methodWrappers, writeBlock);
+                    CodeBlock iocode = iobuilder.build().code;
+                    int iosize = MethodSizes.estimate(iocode.toString());
+
+                    // Outline component blocks into private helpers if the merged method would be too big for the JIT.
+                    TypeSpec.Builder outline = null;
+                    if (first.getReturnType().getKind() == VOID && iosize + entry.value.sum(m -> MethodSizes.estimate(methodBlocks.get(descString(m)))) > splitThreshold) {
+                        outline = builder;
+                    }
+
+                    if (!iocode.isEmpty()) {
+                        if (outline != null) {
+                            MethodSpec helper = iobuilder.build();
+                            builder.addMethod(helper);
+                            sizes.record(name, helper.name + "()", iosize);
+
+                            mbuilder.addStatement("this.$L($L)", helper.name, Seq.with(mbuilder.parameters).toString(", ", p -> p.name));
+                        } else {
+                            mbuilder.addCode(iocode);
+                        }
+                    }
+
+                    boolean firstc = append(mbuilder, defComps, entry.value, inserts, methodWrappers, writeBlock || timed != null || outline != null, timed, outline);
 
                     if (!firstc && !noCompAfter.isEmpty()) mbuilder.addCode(lnew());
                     for (ExecutableElement e : noCompAfter) {
@@ -583,11 +721,18 @@ public class EntityProcessor extends BaseProcessor {
                         mbuilder.addStatement("$T.queueFree(this)", cName(Groups.class));
                     }
 
+                    if (indexed != null && simpleName(first).equals("updateLastPosition") && first.getParameters().isEmpty()) {
+                        mbuilder.addStatement("if(INDEX_SLOT_ != -1) INDEX_.move(INDEX_SLOT_, x, y)");
+                    }
+
                     if (!noCompWrappers.isEmpty()) {
                         mbuilder.endControlFlow();
                     }
 
-                    builder.addMethod(mbuilder.build());
+                    MethodSpec spec = mbuilder.build();
+                    sizes.record(name, entry.key, MethodSizes.estimate(spec.code.toString()));
+
+                    builder.addMethod(spec);
                 }
 
                 if (!serializeOverride) {
@@ -626,6 +771,18 @@ public class EntityProcessor extends BaseProcessor {
                     builder.addMethod(resetBuilder.build());
                 }
 
+                if (metricSlots.size > metricBase) {
+                    // Resolved at runtime, so that the class doesn't depend on how many slots the other classes take.
+                    builder.addField(
+                            FieldSpec.builder(TypeName.INT, "METRICS_", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                                    .initializer("$T.base($S)", ClassName.get(packageName, "EntityMetrics"), name)
+                                    .build()
+                    );
+
+                    metricClasses.add(name);
+                    metricBases.add(metricBase);
+                }
+
                 builder.addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PROTECTED).build());
 
                 builder.addMethod(
@@ -728,6 +885,96 @@ public class EntityProcessor extends BaseProcessor {
                                     .addStatement("unit.constructor = prov")
                                     .build()
                     )
+                    .addField(
+                            FieldSpec.builder(TypeName.BOOLEAN, "initialized")
+                                    .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                                    .build()
+                    )
+                    .addField(
+                            FieldSpec.builder(TypeName.FLOAT, "initTime")
+                                    .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                                    .addJavadoc("Milliseconds {@link #init()} took")
+                                    .build()
+                    )
+                    .addMethod(
+                            MethodSpec.methodBuilder("claim")
+                                    .addJavadoc("Claims {@code count} contiguous free IDs.\n@return The first claimed ID, or -1 if there isn't enough room")
+                                    .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                                    .returns(TypeName.INT)
+                                    .addParameter(TypeName.INT, "count")
+                                    .beginControlFlow("synchronized($T.class)", ClassName.get(packageName, "EntityRegister"))
+                                    .beginControlFlow("for(int i = last, run = 0; i < $T.idMap.length; i++)", cName(EntityMapping.class))
+                                    .beginControlFlow("if($T.idMap[i] != null)", cName(EntityMapping.class))
+                                    .addStatement("run = 0")
+                                    .nextControlFlow("else if(++run == count)")
+                                    .addStatement("last = i + 1")
+                                    .addStatement("return i - count + 1")
+                                    .endControlFlow()
+                                    .endControlFlow()
+                                    .addCode(lnew())
+                                    .addStatement("return -1")
+                                    .endControlFlow()
+                                    .build()
+                    )
+                    .addMethod(
+                            MethodSpec.methodBuilder("clashes")
+                                    .addJavadoc("@return Whether the type or its name is already registered, in which case {@code register()} skips it")
+                                    .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                                    .returns(TypeName.BOOLEAN)
+                                    .addParameter(
+                                            ParameterizedTypeName.get(cName(Class.class), WildcardTypeName.subtypeOf(cName(Entityc.class))),
+                                            "type"
+                                    )
+                                    .addParameter(cName(String.class), "name")
+                                    .addStatement("return ids.containsKey(type) || $T.nameMap.containsKey(name)", cName(EntityMapping.class))
+                                    .build()
+                    )
+                    .addMethod(
+                            MethodSpec.methodBuilder("put")
+                                    .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                                    .returns(TypeName.VOID)
+                                    .addTypeVariable(tvName("T", cName(Entityc.class)))
+                                    .addParameter(TypeName.INT, "id")
+                                    .addParameter(
+                                            ParameterizedTypeName.get(cName(Class.class), tvName("T")),
+                                            "type"
+                                    )
+                                    .addParameter(
+                                            ParameterizedTypeName.get(cName(Prov.class), tvName("T")),
+                                            "prov"
+                                    )
+                                    .addParameter(cName(String.class), "name")
+                                    .addParameter(cName(String.class), "kebab")
+                                    .addStatement("$T.idMap[id] = prov", cName(EntityMapping.class))
+                                    .addStatement("ids.put(type, id)")
+                                    .addCode(lnew())
+                                    .addStatement("$T.nameMap.put(name, prov)", cName(EntityMapping.class))
+                                    .addStatement("$T.nameMap.put(kebab, prov)", cName(EntityMapping.class))
+                                    .build()
+                    )
+                    .addMethod(
+                            MethodSpec.methodBuilder("put")
+                                    .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                                    .returns(TypeName.VOID)
+                                    .addTypeVariable(tvName("T", cName(Unit.class)))
+                                    .addParameter(TypeName.INT, "id")
+                                    .addParameter(cName(UnitType.class), "unit")
+                                    .addParameter(
+                                            ParameterizedTypeName.get(cName(Class.class), tvName("T")),
+                                            "type"
+                                    )
+                                    .addParameter(
+                                            ParameterizedTypeName.get(cName(Prov.class), tvName("T")),
+                                            "prov"
+                                    )
+                                    .addParameter(cName(String.class), "name")
+                                    .addParameter(cName(String.class), "kebab")
+                                    .addStatement("put(id, type, prov, name, kebab)")
+                                    .addStatement("$T.nameMap.put(unit.name, prov)", cName(EntityMapping.class))
+                                    .addStatement("$T.customIdMap.put(id, unit.name)", cName(EntityMapping.class))
+                                    .addStatement("unit.constructor = prov")
+                                    .build()
+                    )
                     .addMethod(
                             MethodSpec.methodBuilder("classId")
                                     .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
@@ -742,26 +989,84 @@ public class EntityProcessor extends BaseProcessor {
                     );
 
             MethodSpec.Builder init = MethodSpec.methodBuilder("init")
+                    .addJavadoc("Registers every generated entity type in one contiguous block of IDs, and every entity pointer")
                     .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                    .returns(TypeName.VOID);
-
-            for (EntityDefinition def : definitions) {
+                    .returns(TypeName.VOID)
+                    .addStatement("if(initialized) return")
+                    .addStatement("initialized = true")
+                    .addStatement("long start = $T.nanos()", cName(Time.class))
+                    .addStatement("$T.begin($S)", cName(profilerName), "EntityRegister.init")
+                    .addCode(lnew());
+
+            // Generated types are registered in a deterministic order, with their names computed here rather than at startup.
+            // Types whose class or name is already taken get no ID from the block, and go through `register()` like before.
+            CodeBlock.Builder clashes = CodeBlock.builder(), bulk = CodeBlock.builder(), fallback = CodeBlock.builder();
+            Seq<EntityDefinition> registered = definitions.copy().sort(Structs.comparing(d -> d.name));
+            for (int i = 0; i < registered.size; i++) {
+                EntityDefinition def = registered.get(i);
                 ClassName type = ClassName.get(packageName, def.name);
+                String simple = simpleName(def.name);
 
-                def.builder.addMethod(
-                        MethodSpec.methodBuilder("classId").addModifiers(Modifier.PUBLIC)
-                                .addAnnotation(cName(Override.class))
-                                .returns(TypeName.INT)
-                                .addStatement("return $T.classId($T.class)", ClassName.get(packageName, "EntityRegister"), type)
-                                .build()
-                );
-
+                CodeBlock put, register;
                 if (def.naming instanceof VariableElement) {
-                    TypeMirror up = def.naming.getEnclosingElement().asType();
+                    TypeName up = TypeName.get(def.naming.getEnclosingElement().asType());
                     String c = simpleName(def.naming);
-                    init.addStatement("register($T.$L, $T.class, $T::create)", TypeName.get(up), c, type, type);
+
+                    put = CodeBlock.of("put(next++, $T.$L, $T.class, $T::create, $S, $S)", up, c, type, type, simple, Strings.camelToKebab(simple));
+                    register = CodeBlock.of("register($T.$L, $T.class, $T::create)", up, c, type, type);
                 } else {
-                    init.addStatement("register($T.class, $T::create)", type, type);
+                    put = CodeBlock.of("put(next++, $T.class, $T::create, $S, $S)", type, type, simple, Strings.camelToKebab(simple));
+                    register = CodeBlock.of("register($T.class, $T::create)", type, type);
+                }
+
+                clashes.add((i == 0 ? "" : ", ") + "clashes($T.class, $S)", type, simple);
+                bulk.beginControlFlow("if(clashes[$L])", i)
+                        .addStatement(register)
+                        .nextControlFlow("else")
+                        .addStatement(put)
+                        .endControlFlow();
+                fallback.addStatement(register);
+            }
+
+            if (registered.any()) {
+                init.addStatement("boolean[] clashes = {$L}", clashes.build())
+                        .addStatement("int count = 0")
+                        .beginControlFlow("for(boolean clash : clashes)")
+                        .addStatement("if(!clash) count++")
+                        .endControlFlow()
+                        .addCode(lnew())
+                        .addStatement("int id = claim(count)")
+                        .beginControlFlow("if(id != -1)")
+                        .addStatement("int next = id")
+                        .addCode(bulk.build())
+                        .nextControlFlow("else")
+                        .addCode(fallback.build())
+                        .endControlFlow()
+                        .addCode(lnew());
+            }
+
+            for (EntityDefinition def : definitions) {
+                ClassName type = ClassName.get(packageName, def.name);
+
+                // Cached, since `classId()` is called for every entity written to saves and snapshots.
+                def.builder
+                        .addField(
+                                FieldSpec.builder(TypeName.INT, "CLASS_ID_")
+                                        .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                                        .initializer("-1")
+                                        .build()
+                        )
+                        .addMethod(
+                                MethodSpec.methodBuilder("classId").addModifiers(Modifier.PUBLIC)
+                                        .addAnnotation(cName(Override.class))
+                                        .returns(TypeName.INT)
+                                        .addStatement("if(CLASS_ID_ == -1) CLASS_ID_ = $T.classId($T.class)", ClassName.get(packageName, "EntityRegister"), type)
+                                        .addStatement("return CLASS_ID_")
+                                        .build()
+                        );
+
+                if (Seq.with(def.builder.fieldSpecs).contains(f -> f.name.equals("INDEX_"))) {
+                    init.addStatement("$T.on($T.class, e -> $T.INDEX_.clear())", ClassName.get("arc", "Events"), ClassName.get("mindustry.game", "EventType", "ResetEvent"), type);
                 }
             }
 
@@ -787,11 +1092,136 @@ public class EntityProcessor extends BaseProcessor {
                 }
             }
 
+            init.addCode(lnew())
+                    .addStatement("initTime = $T.timeSinceNanos(start) / (float)$T.nanosPerMilli", cName(Time.class), cName(Time.class))
+                    .addStatement("$T.debug($S, $L, initTime)", cName(Log.class), "Registered @ entity types in @ms", registered.size)
+                    .addStatement("$T.end()", cName(profilerName));
+
             write(map
                     .addMethod(init.build())
                     .build()
             );
 
+            CodeBlock.Builder names = CodeBlock.builder().add("{");
+            for (int i = 0; i < metricSlots.size; i++) {
+                names.add(i == 0 ? "$S" : ", $S", metricSlots.get(i));
+            }
+
+            CodeBlock.Builder classes = CodeBlock.builder().add("{"), bases = CodeBlock.builder().add("{");
+            for (int i = 0; i < metricClasses.size; i++) {
+                classes.add(i == 0 ? "$S" : ", $S", metricClasses.get(i));
+                bases.add(i == 0 ? "$L" : ", $L", metricBases.get(i));
+            }
+
+            write(TypeSpec.classBuilder("EntityMetrics").addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                    .addJavadoc("Per-component timings of generated entity methods, only recorded if compiled with {@code -A$L=true}", metricsOption)
+                    .addField(
+                            FieldSpec.builder(TypeName.BOOLEAN, "enabled", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                                    .initializer("$L", metrics)
+                                    .build()
+                    )
+                    .addField(
+                            FieldSpec.builder(ArrayTypeName.of(String.class), "names", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                                    .initializer(names.add("}").build())
+                                    .build()
+                    )
+                    .addField(
+                            FieldSpec.builder(ArrayTypeName.of(TypeName.LONG), "calls", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                                    .initializer("new long[$L]", metricSlots.size)
+                                    .build()
+                    )
+                    .addField(
+                            FieldSpec.builder(ArrayTypeName.of(TypeName.LONG), "total", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                                    .initializer("new long[$L]", metricSlots.size)
+                                    .build()
+                    )
+                    .addField(
+                            FieldSpec.builder(ArrayTypeName.of(TypeName.LONG), "max", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                                    .initializer("new long[$L]", metricSlots.size)
+                                    .build()
+                    )
+                    .addMethod(
+                            MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE)
+                                    .addStatement("throw new $T()", cName(AssertionError.class))
+                                    .build()
+                    )
+                    .addField(
+                            FieldSpec.builder(ArrayTypeName.of(String.class), "classes", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                                    .initializer(classes.add("}").build())
+                                    .build()
+                    )
+                    .addField(
+                            FieldSpec.builder(ArrayTypeName.of(TypeName.INT), "bases", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                                    .initializer(bases.add("}").build())
+                                    .build()
+                    )
+                    .addMethod(
+                            MethodSpec.methodBuilder("base").addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                                    .addJavadoc("@return The first slot of the given generated class, which its timed blocks record relative to")
+                                    .returns(TypeName.INT)
+                                    .addParameter(String.class, "type")
+                                    .beginControlFlow("for(int i = 0; i < classes.length; i++)")
+                                    .addStatement("if(classes[i].equals(type)) return bases[i]")
+                                    .endControlFlow()
+                                    .addCode(lnew())
+                                    .addStatement("throw new $T($S + type)", IllegalArgumentException.class, "No metric slots for ")
+                                    .build()
+                    )
+                    .addMethod(
+                            MethodSpec.methodBuilder("record").addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                                    .returns(TypeName.VOID)
+                                    .addParameter(TypeName.INT, "slot")
+                                    .addParameter(TypeName.LONG, "nanos")
+                                    .addStatement("calls[slot]++")
+                                    .addStatement("total[slot] += nanos")
+                                    .addStatement("if(nanos > max[slot]) max[slot] = nanos")
+                                    .build()
+                    )
+                    .addMethod(
+                            MethodSpec.methodBuilder("reset").addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                                    .returns(TypeName.VOID)
+                                    .addStatement("$T.fill(calls, 0L)", cName(Arrays.class))
+                                    .addStatement("$T.fill(total, 0L)", cName(Arrays.class))
+                                    .addStatement("$T.fill(max, 0L)", cName(Arrays.class))
+                                    .build()
+                    )
+                    .addMethod(
+                            MethodSpec.methodBuilder("dump").addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                                    .addJavadoc("Logs every timed component block that has been called, sorted by total time")
+                                    .returns(TypeName.VOID)
+                                    .beginControlFlow("if(!enabled)")
+                                    .addStatement("$T.info($S)", cName(Log.class), "Entity metrics are disabled; recompile with -A" + metricsOption + "=true.")
+                                    .addStatement("return")
+                                    .endControlFlow()
+                                    .addCode(lnew())
+                                    .addStatement("$T order = new $T(names.length)", cName(IntSeq.class), cName(IntSeq.class))
+                                    .addStatement("for(int i = 0; i < names.length; i++) if(calls[i] > 0) order.add(i)")
+                                    .addCode(lnew())
+                                    .addStatement("int[] items = order.items")
+                                    .beginControlFlow("for(int i = 1; i < order.size; i++)")
+                                    .addStatement("int slot = items[i], j = i - 1")
+                                    .beginControlFlow("for(; j >= 0 && total[items[j]] < total[slot]; j--)")
+                                    .addStatement("items[j + 1] = items[j]")
+                                    .endControlFlow()
+                                    .addStatement("items[j + 1] = slot")
+                                    .endControlFlow()
+                                    .addCode(lnew())
+                                    .addStatement("$T.info($S, order.size)", cName(Log.class), "[EntityMetrics] @ timed component blocks:")
+                                    .beginControlFlow("for(int i = 0; i < order.size; i++)")
+                                    .addStatement("int s = items[i]")
+                                    .addStatement("$T.info($S, names[s], calls[s], $T.fixed(total[s] / 1000000f, 2), $T.fixed(total[s] / 1000f / calls[s], 2), $T.fixed(max[s] / 1000f, 2))",
+                                            cName(Log.class), "  @: @ calls, @ms total, @us avg, @us max", cName(Strings.class), cName(Strings.class), cName(Strings.class)
+                                    )
+                                    .endControlFlow()
+                                    .build()
+                    )
+                    .build()
+            );
+
+            for (EntityDefinition def : definitions) {
+                if (def.extend != null) extended.add(simpleName(def.extend.toString()));
+            }
+
             ObjectSet<String> usedCNames = new ObjectSet<>();
             for (EntityDefinition def : definitions) {
                 if (!usedCNames.add(Reflect.get(TypeSpec.Builder.class, def.builder, "name"))) continue;
@@ -802,6 +1232,11 @@ public class EntityProcessor extends BaseProcessor {
                     def.builder.superclass(def.extend);
                 }
 
+                // Leaf classes are final, so the JIT can bind `*c` interface calls through class hierarchy analysis.
+                if (!extended.contains(simpleName(def.name))) {
+                    def.builder.addModifiers(Modifier.FINAL);
+                }
+
                 for (TypeElement comp : def.components) {
                     TypeElement inter = inters.find(i -> simpleName(i).equals(interfaceName(comp)));
                     if (inter == null) {
@@ -825,6 +1260,8 @@ public class EntityProcessor extends BaseProcessor {
                         FieldSpec field = def.fieldSpecs.find(f -> f.name.equals(var));
 
                         if (field == null || methodNames.contains(simpleString(method))) continue;
+                        // Lazy fields already have their allocating getter.
+                        if (method.getReturnType().getKind() != VOID && Seq.with(field.annotations).contains(a -> a.type.toString().equals(Lazy.class.getCanonicalName()))) continue;
 
                         MethodSpec result = null;
 
@@ -866,17 +1303,113 @@ public class EntityProcessor extends BaseProcessor {
                 TypeSpec spec = b.build();
                 write(spec, imports.get(spec.name));
             }
+
+            sizes.report("Generated entity methods", reportFile("entity-methods.txt"), 10);
+            layouts.report("Generated entity footprints", reportFile("entity-footprint.txt"));
+        }
+    }
+
+    /**
+     * @return The source of a component method's body, with reads of the given {@link Lazy} fields turned into calls to
+     * their getters. Assignments, null checks, method calls of the same name and shadowing locals are left alone.
+     */
+    String lazyAccess(ExecutableElement method, ObjectSet<String> names) {
+        JCBlock body = trees.getTree(method).getBody();
+        if (names.isEmpty()) return body.toString();
+
+        ObjectSet<JCTree> skip = new ObjectSet<>();
+        ObjectSet<String> locals = Seq.with(method.getParameters()).map(BaseProcessor::simpleName).asSet();
+        new TreeScanner() {
+            @Override
+            public void visitVarDef(JCVariableDecl tree) {
+                locals.add(tree.name.toString());
+                super.visitVarDef(tree);
+            }
+
+            @Override
+            public void visitAssign(JCAssign tree) {
+                skip.add(tree.lhs);
+                super.visitAssign(tree);
+            }
+
+            @Override
+            public void visitAssignop(JCAssignOp tree) {
+                skip.add(tree.lhs);
+                super.visitAssignop(tree);
+            }
+
+            @Override
+            public void visitBinary(JCBinary tree) {
+                if (tree.hasTag(Tag.EQ) || tree.hasTag(Tag.NE)) {
+                    if (TreeInfo.isNull(tree.rhs)) skip.add(tree.lhs);
+                    if (TreeInfo.isNull(tree.lhs)) skip.add(tree.rhs);
+                }
+                super.visitBinary(tree);
+            }
+
+            @Override
+            public void visitApply(JCMethodInvocation tree) {
+                skip.add(tree.meth);
+                super.visitApply(tree);
+            }
+        }.scan(body);
+
+        StringWriter printed = new StringWriter();
+        try {
+            new Pretty(printed, false) {
+                @Override
+                public void visitIdent(JCIdent tree) {
+                    String name = tree.name.toString();
+                    if (skip.contains(tree) || !names.contains(name) || locals.contains(name)) {
+                        super.visitIdent(tree);
+                    } else {
+                        printed.write(name + "()");
+                    }
+                }
+
+                @Override
+                public void visitSelect(JCFieldAccess tree) {
+                    String name = tree.name.toString();
+                    if (skip.contains(tree) || !names.contains(name) || !(tree.selected instanceof JCIdent self && self.name.contentEquals("this"))) {
+                        super.visitSelect(tree);
+                    } else {
+                        printed.write("this." + name + "()");
+                    }
+                }
+            }.printExpr(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+
+        return printed.toString();
+    }
+
+    void collectExtended(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != NONE) {
+            String name = superclass.toString();
+            if (name.contains("<")) name = name.substring(0, name.indexOf('<'));
+
+            extended.add(simpleName(name));
+        }
+
+        for (TypeElement inner : types(type)) collectExtended(inner);
     }
 
     boolean ext(ExecutableElement e, Seq<TypeElement> defComps) {
+        ExtendImport imp = annotation(e, ExtendImport.class);
+        if (imp != null && !defComps.contains(c ->
+                !simpleName(c).equals(simpleName(e.getEnclosingElement())) &&
+                        vars(c).contains(v -> annotation(v, Import.class) != null && simpleName(v).equals(imp.value()))
+        )) return false;
+
         Extend ext = annotation(e, Extend.class);
         if (ext == null) return true;
 
         return defComps.contains(toComp(elements(ext::value).first()));
     }
 
-    boolean append(MethodSpec.Builder mbuilder, Seq<TypeElement> defComps, Seq<ExecutableElement> values, Seq<ExecutableElement> inserts, Seq<ExecutableElement> wrappers, boolean writeBlock) {
+    boolean append(MethodSpec.Builder mbuilder, Seq<TypeElement> defComps, Seq<ExecutableElement> values, Seq<ExecutableElement> inserts, Seq<ExecutableElement> wrappers, boolean writeBlock, @Nullable String timed, @Nullable TypeSpec.Builder outline) {
         boolean firstc = true;
         if (values.contains(m -> annotation(m, Combine.class) != null)) {
             ExecutableElement base = values.find(m -> annotation(m, Combine.class) != null);
@@ -1009,11 +1542,27 @@ public class EntityProcessor extends BaseProcessor {
                     mbuilder.beginControlFlow(format.toString(), args.toArray());
                 }
 
+                String timer = null;
+                if (timed != null && str != null && !str.replaceAll("\\s+", "").isEmpty()) {
+                    timer = blockName + "_TIME_";
+                    metricSlots.add(timed + "/" + simpleName(elem.getEnclosingElement()));
+
+                    if (!firstc && !newlined) {
+                        mbuilder.addCode(lnew());
+                        newlined = true;
+                    }
+                    mbuilder.addStatement("long $L = $T.nanoTime()", timer, cName(System.class));
+                    // Recorded in `finally`, so that @BreakAll blocks returning early still show up.
+                    mbuilder.beginControlFlow("try");
+                }
+
                 if (!firstc && !newlined && !compBefore.isEmpty()) mbuilder.addCode(lnew());
                 for (ExecutableElement e : compBefore) mbuilder.addStatement("this.$L()", simpleName(e));
 
+                // Outlined blocks keep their `return;`s, as returning from the helper is the same as breaking out of the block.
+                boolean outlined = outline != null && writeBlock && str != null && annotation(elem, BreakAll.class) == null;
                 if (writeBlock) {
-                    if (annotation(elem, BreakAll.class) == null)
+                    if (!outlined && annotation(elem, BreakAll.class) == null)
                         str = str.replace("return;", "break " + blockName + ";");
 
                     if (str
@@ -1027,14 +1576,39 @@ public class EntityProcessor extends BaseProcessor {
                         newlined = true;
                     }
 
-                    mbuilder.beginControlFlow("$L:", blockName);
+                    if (!outlined) mbuilder.beginControlFlow("$L:", blockName);
                 }
 
-                mbuilder.addCode(str);
+                if (outlined) {
+                    boolean isStatic = mbuilder.modifiers.contains(Modifier.STATIC);
+                    MethodSpec.Builder helper = MethodSpec.methodBuilder(simpleName(elem) + "_" + blockName + "_")
+                            .addModifiers(Modifier.PRIVATE)
+                            .addTypeVariables(mbuilder.typeVariables)
+                            .addParameters(mbuilder.parameters)
+                            .addExceptions(Seq.with(elem.getThrownTypes()).map(TypeName::get))
+                            .returns(TypeName.VOID)
+                            .addCode(str);
+
+                    if (isStatic) helper.addModifiers(Modifier.STATIC);
+
+                    MethodSpec spec = helper.build();
+                    outline.addMethod(spec);
+                    sizes.record(Reflect.get(TypeSpec.Builder.class, outline, "name"), spec.name + "()", MethodSizes.estimate(spec.code.toString()));
+
+                    mbuilder.addStatement(isStatic ? "$L($L)" : "this.$L($L)", spec.name, Seq.with(mbuilder.parameters).toString(", ", p -> p.name));
+                } else {
+                    mbuilder.addCode(str);
+                }
 
-                if (writeBlock) mbuilder.endControlFlow();
+                if (writeBlock && !outlined) mbuilder.endControlFlow();
                 for (ExecutableElement e : compAfter) mbuilder.addStatement("this.$L()", simpleName(e));
 
+                if (timer != null) {
+                    mbuilder.nextControlFlow("finally")
+                            .addStatement("$T.record(METRICS_ + $L, $T.nanoTime() - $L)", ClassName.get(packageName, "EntityMetrics"), metricSlots.size - 1 - metricBase, cName(System.class), timer)
+                            .endControlFlow();
+                }
+
                 if (!wrapComp.isEmpty()) mbuilder.endControlFlow();
                 firstc = false;
             }
@@ -1121,6 +1695,11 @@ public class EntityProcessor extends BaseProcessor {
         return rev.toString("", s -> simpleName(s).replace("Comp", ""));
     }
 
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Set.of(metricsOption, splitOption);
+    }
+
     @Override
     public Set<String> getSupportedAnnotationTypes() {
         return Set.of(EntityComponent.class.getCanonicalName(), EntityBaseComponent.class.getCanonicalName(), EntityDef.class.getCanonicalName(), EntityPoint.class.getCanonicalName());
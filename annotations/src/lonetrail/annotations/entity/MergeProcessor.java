@@ -33,6 +33,9 @@ public class MergeProcessor extends BaseProcessor {
     Seq<MergeDefinition> definitions = new Seq<>();
     ClassSerializer serializer;
 
+    int splitThreshold;
+    MethodSizes sizes = new MethodSizes();
+
     {
         rounds = 3;
     }
@@ -59,6 +62,7 @@ public class MergeProcessor extends BaseProcessor {
 
         if (round == 1) {
             serializer = TypeIOResolver.resolve(this);
+            splitThreshold = Strings.parseInt(option(EntityProcessor.splitOption, ""), MethodSizes.hugeMethodLimit);
 
             for (TypeElement comp : comps.select(t -> t.getEnclosingElement() instanceof PackageElement)) {
                 constructor(comp);
@@ -123,6 +127,8 @@ public class MergeProcessor extends BaseProcessor {
                     write(def.builder.build(), def.components.flatMap(comp -> imports.get(interfaceName(comp))));
                 }
             }
+
+            sizes.report("Generated merge methods", reportFile("merge-methods.txt"), 10);
         }
     }
 
@@ -330,7 +336,7 @@ public class MergeProcessor extends BaseProcessor {
                 mbuilder.addStatement("this.$L()", simpleName(e));
             }
 
-            boolean firstc = append(mbuilder, constructors, inserts, writeBlock, false);
+            boolean firstc = append(mbuilder, constructors, inserts, writeBlock, false, null);
 
             if (!firstc && !noCompAfter.isEmpty()) mbuilder.addCode(lnew());
             for (ExecutableElement e : noCompAfter) {
@@ -444,18 +450,49 @@ public class MergeProcessor extends BaseProcessor {
                 Object[] args = Seq.with(simpleName(first)).add(params.map(p -> p.name)).toArray(Object.class);
 
                 mbuilder.addStatement("super.$L(" + argLiteral + ")", args);
+            }
+
+            // Serialization is generated apart first, so that it counts towards the method's size and can be outlined too.
+            MethodSpec.Builder iobuilder = MethodSpec.methodBuilder(simpleName(first) + "_io_").addModifiers(Modifier.PRIVATE)
+                    .addParameters(mbuilder.parameters)
+                    .returns(TypeName.VOID);
+
+            if ((simpleName(first).equals("read") && first.getParameters().size() == 2) || simpleName(first).equals("write")) {
+                io.write(this, iobuilder, simpleName(first).equals("write"), allFields);
+            }
+
+            CodeBlock iocode = iobuilder.build().code;
+            int iosize = MethodSizes.estimate(iocode.toString());
 
-                io.write(this, mbuilder, simpleName(first).equals("write"), allFields);
+            // Outline component blocks into private helpers if the merged method would be too big for the JIT.
+            TypeSpec.Builder outline = null;
+            if (first.getReturnType().getKind() == VOID && iosize + entry.value.sum(m -> MethodSizes.estimate(methodBlocks.get(descString(m)))) > splitThreshold) {
+                outline = builder;
             }
 
-            boolean firstc = append(mbuilder, entry.value, inserts, writeBlock, superCall);
+            if (!iocode.isEmpty()) {
+                if (outline != null) {
+                    MethodSpec helper = iobuilder.build();
+                    builder.addMethod(helper);
+                    sizes.record(name, helper.name + "()", iosize);
+
+                    mbuilder.addStatement("this.$L($L)", helper.name, Seq.with(mbuilder.parameters).toString(", ", p -> p.name));
+                } else {
+                    mbuilder.addCode(iocode);
+                }
+            }
+
+            boolean firstc = append(mbuilder, entry.value, inserts, writeBlock || outline != null, superCall, outline);
 
             if (!firstc && !noCompAfter.isEmpty()) mbuilder.addCode(lnew());
             for (ExecutableElement e : noCompAfter) {
                 mbuilder.addStatement("this.$L()", simpleName(e));
             }
 
-            builder.addMethod(mbuilder.build());
+            MethodSpec spec = mbuilder.build();
+            sizes.record(name, entry.key, MethodSizes.estimate(spec.code.toString()));
+
+            builder.addMethod(spec);
         }
 
         return new MergeDefinition(packageName + "." + name, builder, def, defComps, allFieldSpecs);
@@ -614,7 +651,7 @@ public class MergeProcessor extends BaseProcessor {
         });
     }
 
-    boolean append(MethodSpec.Builder mbuilder, Seq<ExecutableElement> values, Seq<ExecutableElement> inserts, boolean writeBlock, boolean superCall) {
+    boolean append(MethodSpec.Builder mbuilder, Seq<ExecutableElement> values, Seq<ExecutableElement> inserts, boolean writeBlock, boolean superCall, @Nullable TypeSpec.Builder outline) {
         boolean firstc = true;
         boolean superCalled = false;
 
@@ -754,8 +791,10 @@ public class MergeProcessor extends BaseProcessor {
                         .isEmpty()
                 ) continue;
 
+                // Outlined blocks keep their `return;`s, as returning from the helper is the same as breaking out of the block.
+                boolean outlined = outline != null && writeBlock && annotation(elem, BreakAll.class) == null;
                 if (writeBlock) {
-                    if (annotation(elem, BreakAll.class) == null) {
+                    if (!outlined && annotation(elem, BreakAll.class) == null) {
                         str = str.replace("return;", "break " + blockName + ";");
                     }
 
@@ -764,7 +803,7 @@ public class MergeProcessor extends BaseProcessor {
                         newlined = true;
                     }
 
-                    mbuilder.beginControlFlow("$L:", blockName);
+                    if (!outlined) mbuilder.beginControlFlow("$L:", blockName);
                 }
 
                 Seq<Object> arguments = new Seq<>();
@@ -779,9 +818,28 @@ public class MergeProcessor extends BaseProcessor {
                     arguments.add(snip);
                 }
 
-                mbuilder.addCode(fixed, arguments.toArray());
+                if (outlined) {
+                    boolean isStatic = mbuilder.modifiers.contains(Modifier.STATIC);
+                    MethodSpec.Builder helper = MethodSpec.methodBuilder(simpleName(elem) + "_" + blockName + "_")
+                            .addModifiers(Modifier.PRIVATE)
+                            .addTypeVariables(mbuilder.typeVariables)
+                            .addParameters(mbuilder.parameters)
+                            .addExceptions(Seq.with(elem.getThrownTypes()).map(TypeName::get))
+                            .returns(TypeName.VOID)
+                            .addCode(fixed, arguments.toArray());
 
-                if (writeBlock) mbuilder.endControlFlow();
+                    if (isStatic) helper.addModifiers(Modifier.STATIC);
+
+                    MethodSpec spec = helper.build();
+                    outline.addMethod(spec);
+                    sizes.record(Reflect.get(TypeSpec.Builder.class, outline, "name"), spec.name + "()", MethodSizes.estimate(spec.code.toString()));
+
+                    mbuilder.addStatement(isStatic ? "$L($L)" : "this.$L($L)", spec.name, Seq.with(mbuilder.parameters).toString(", ", p -> p.name));
+                } else {
+                    mbuilder.addCode(fixed, arguments.toArray());
+                }
+
+                if (writeBlock && !outlined) mbuilder.endControlFlow();
                 for (ExecutableElement e : compAfter) mbuilder.addStatement("this.$L()", simpleName(e));
             }
 
@@ -811,6 +869,11 @@ public class MergeProcessor extends BaseProcessor {
         return Set.of(Merge.class.getCanonicalName(), MergeComponent.class.getCanonicalName(), MergeInterface.class.getCanonicalName());
     }
 
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Set.of(EntityProcessor.splitOption);
+    }
+
     private static class MergeDefinition {
         final Seq<TypeElement> components;
         final Seq<FieldSpec> fieldSpecs;
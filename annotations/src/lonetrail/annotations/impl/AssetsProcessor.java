@@ -1,7 +1,5 @@
 package lonetrail.annotations.impl;
 
-import arc.*;
-import arc.assets.loaders.SoundLoader.*;
 import arc.audio.*;
 import arc.files.*;
 import arc.struct.*;
@@ -9,6 +7,7 @@ import arc.util.*;
 import arc.util.io.*;
 import com.squareup.javapoet.*;
 import lonetrail.annotations.*;
+import lonetrail.annotations.util.*;
 import mindustry.*;
 
 import javax.annotation.processing.*;
@@ -16,6 +15,11 @@ import javax.lang.model.element.*;
 import java.util.*;
 
 public class AssetsProcessor extends BaseProcessor {
+    /** Decodes the assets on worker threads; every asset's {@code load} method adds its decoding to it. */
+    static final String loadPlan = "lonetrail.core.LoadPlan";
+    /** Every asset with its size and checksum, relative to the root project. */
+    public static final String assetManifest = "build/lonetrail/assets.txt";
+
     Seq<Asset> assets = new Seq<>();
 
     {
@@ -50,14 +54,10 @@ public class AssetsProcessor extends BaseProcessor {
 
                         @Override
                         public void load(MethodSpec.Builder builder) {
-                            builder.addStatement("var n = $S + name", directory() + "/")
-                                    .addStatement("var path = $T.tree.get(n + $S).exists() ? n + $S : n + $S", cName(Vars.class), ".ogg", ".ogg", ".mp3")
-                                    .addCode(lnew())
-                                    .addStatement("var sound = new $T()", cName(Sound.class))
-                                    .addCode(lnew())
-                                    .addStatement("var desc = $T.assets.load(path, $T.class, new $T(sound))", cName(Core.class), cName(Sound.class), cName(SoundParameter.class))
-                                    .addStatement("desc.errored = e -> $T.err(($T)e)", cName(Log.class), cName(Throwable.class))
+                            builder.addStatement("if($T.enabled()) return new $T(path)", cName("lonetrail.audio.LazySound"), cName("lonetrail.audio.LazySound"))
                                     .addCode(lnew())
+                                    .addStatement("var sound = new $T(plan)", cName("lonetrail.audio.PlannedSound"))
+                                    .addStatement("plan.add(() -> sound.load($T.tree.get(path)))", cName(Vars.class))
                                     .addStatement("return sound");
                         }
                     }
@@ -75,14 +75,18 @@ public class AssetsProcessor extends BaseProcessor {
 
                 MethodSpec.Builder specLoad = MethodSpec.methodBuilder("load").addModifiers(Modifier.PROTECTED, Modifier.STATIC)
                         .returns(tName(type))
-                        .addParameter(cName(String.class), "name");
+                        .addParameter(cName(String.class), "path")
+                        .addParameter(cName(loadPlan), "plan");
 
                 a.load(specLoad);
                 spec.addMethod(specLoad.build());
 
                 MethodSpec.Builder globalLoad = MethodSpec.methodBuilder("load").addModifiers(Modifier.PUBLIC, Modifier.STATIC)
                         .returns(TypeName.VOID)
-                        .addStatement("if ($T.headless) return", cName(Vars.class));
+                        .addStatement("if($T.headless) return", cName(Vars.class))
+                        .addStatement("$T.begin($S)", cName(profilerName), a.name() + ".load")
+                        .addStatement("var plan = new $T($S)", cName(loadPlan), a.name())
+                        .addCode(lnew());
 
                 boolean useProp = a.properties();
 
@@ -109,8 +113,11 @@ public class AssetsProcessor extends BaseProcessor {
                                     .build()
                     );
 
+                    // The file is already known here, so the extension doesn't have to be looked up at runtime.
                     String stripped = name.substring(0, name.length() - ex);
-                    globalLoad.addStatement("$L = load($S)", fieldName, stripped);
+                    String assetPath = a.directory() + "/" + name.replace('\\', '/');
+                    globalLoad.addStatement("$L = load($S, plan)", fieldName, assetPath);
+                    ManifestWriter.sound(assetPath, path);
 
                     if (a.properties()) {
                         Seq<String> props = properties.keys().toSeq().select(prop -> prop.split("\\.")[1].equals(stripped));
@@ -134,9 +141,19 @@ public class AssetsProcessor extends BaseProcessor {
                     }
                 });
 
-                spec.addMethod(globalLoad.build());
+                spec.addMethod(globalLoad
+                        .addCode(lnew())
+                        .addStatement("plan.start()")
+                        .addStatement("$T.end()", cName(profilerName))
+                        .build()
+                );
                 write(spec.build());
             }
+
+            // Regions were added by `LoadProcessor` in the first round.
+            rootDir.child(assetManifest).writeString(ManifestWriter.report());
+            write(ManifestWriter.build(profilerName));
+            ManifestWriter.clear();
         }
     }
 
@@ -171,7 +188,10 @@ public class AssetsProcessor extends BaseProcessor {
         /** File checker, use to prevent unrelated files getting parsed into assets */
         boolean valid(Fi file);
 
-        /** Method builder for asset loading */
+        /**
+         * Method builder for asset loading, given the asset's {@code path} relative to the assets root, with its
+         * extension, and the {@code plan} to add decoding work to. Must return the asset right away.
+         */
         void load(MethodSpec.Builder builder);
 
         default CodeBlock initializer() {
@@ -0,0 +1,154 @@
+package lonetrail.annotations.impl;
+
+import arc.struct.*;
+import com.squareup.javapoet.*;
+import lonetrail.annotations.Annotations.*;
+import lonetrail.annotations.*;
+
+import javax.annotation.processing.*;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import java.util.*;
+
+/**
+ * Generates field-by-field copy methods for {@link Copyable} types into {@code Copies}, so copying content definitions
+ * doesn't have to go through reflection and JSON.
+ */
+public class CopyProcessor extends BaseProcessor {
+    ObjectSet<String> copyable = new ObjectSet<>();
+
+    {
+        rounds = 1;
+    }
+
+    @Override
+    public void process(RoundEnvironment roundEnv) throws Exception {
+        if (round == 1) {
+            Seq<TypeElement> defs = Seq.with((Set<TypeElement>) roundEnv.getElementsAnnotatedWith(Copyable.class));
+            if (defs.isEmpty()) return;
+
+            defs.sort(Comparator.comparing(BaseProcessor::fullName));
+            for (TypeElement def : defs) copyable.add(fullName(def));
+
+            TypeSpec.Builder builder = TypeSpec.classBuilder("Copies").addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                    .addJavadoc("Field-by-field copies of {@link $T} types", cName(Copyable.class))
+                    .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).addStatement("throw new $T()", cName(AssertionError.class)).build());
+
+            for (TypeElement def : defs) {
+                if (!def.getTypeParameters().isEmpty()) {
+                    throw new IllegalStateException(def + ": @Copyable types can't be generic");
+                }
+                if (is(def, Modifier.ABSTRACT)) {
+                    throw new IllegalStateException(def + ": @Copyable types can't be abstract");
+                }
+
+                ClassName type = cName(def);
+                Seq<VariableElement> fields = fields(def);
+
+                builder.addMethod(MethodSpec.methodBuilder("copy").addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                        .addJavadoc("@return A new {@link $T} with the fields of {@code from}", type)
+                        .returns(type)
+                        .addParameter(type, "from")
+                        .addStatement("return copyInto(from, $L)", construct(def, fields))
+                        .build()
+                );
+
+                MethodSpec.Builder into = MethodSpec.methodBuilder("copyInto").addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                        .addJavadoc("Copies every field of {@code from} into {@code to}, except final ones.\n@return {@code to}")
+                        .returns(type)
+                        .addParameter(type, "from")
+                        .addParameter(type, "to");
+
+                for (VariableElement field : fields) copy(into, field);
+
+                builder.addMethod(into.addStatement("return to").build());
+            }
+
+            write(builder.build());
+        }
+    }
+
+    /** @return Every public, non-static and non-transient field of the type and its superclasses, superclasses first */
+    Seq<VariableElement> fields(TypeElement def) {
+        Seq<TypeElement> hierarchy = new Seq<>();
+        for (TypeElement t = def; t != null && !fullName(t).equals("java.lang.Object"); t = t.getSuperclass().getKind() == TypeKind.DECLARED ? toEl(t.getSuperclass()) : null) {
+            hierarchy.insert(0, t);
+        }
+
+        return hierarchy.flatMap(t -> vars(t).select(v ->
+                is(v, Modifier.PUBLIC) &&
+                !is(v, Modifier.STATIC) &&
+                !is(v, Modifier.TRANSIENT)
+        ));
+    }
+
+    /** @return The expression constructing a new instance, either with the no-argument constructor or one whose parameters are all named after fields */
+    CodeBlock construct(TypeElement def, Seq<VariableElement> fields) {
+        Seq<ExecutableElement> ctors = Seq.with(def.getEnclosedElements())
+                .select(e -> e.getKind() == ElementKind.CONSTRUCTOR && is(e, Modifier.PUBLIC))
+                .map(e -> (ExecutableElement) e)
+                .sort(Comparator.comparingInt(e -> e.getParameters().size()));
+
+        for (ExecutableElement ctor : ctors) {
+            Seq<String> params = Seq.with(ctor.getParameters()).map(BaseProcessor::simpleName);
+            if (!params.allMatch(p -> fields.contains(f -> simpleName(f).equals(p)))) continue;
+
+            return CodeBlock.of("new $T($L)", cName(def), params.map(p -> "from." + p).toString(", "));
+        }
+
+        throw new IllegalStateException(def + ": @Copyable types need a public constructor with no parameters, or with only parameters named after public fields");
+    }
+
+    void copy(MethodSpec.Builder method, VariableElement field) {
+        String name = simpleName(field);
+        TypeMirror type = field.asType();
+        boolean isFinal = is(field, Modifier.FINAL);
+
+        if (type.getKind() == TypeKind.ARRAY) {
+            if (isFinal) return;
+
+            TypeMirror comp = ((ArrayType) type).getComponentType();
+            if (isCopyable(comp)) {
+                method.beginControlFlow("if(from.$L != null)", name)
+                        .addStatement("to.$L = new $T[from.$L.length]", name, TypeName.get(comp), name)
+                        .beginControlFlow("for(int i = 0; i < from.$L.length; i++)", name)
+                        .addStatement("to.$L[i] = from.$L[i] == null ? null : copy(from.$L[i])", name, name, name)
+                        .endControlFlow()
+                        .nextControlFlow("else")
+                        .addStatement("to.$L = null", name)
+                        .endControlFlow();
+            } else {
+                method.addStatement("to.$L = from.$L == null ? null : from.$L.clone()", name, name, name);
+            }
+        } else if (type.getKind() == TypeKind.DECLARED && fullName(toEl(type)).equals("arc.struct.Seq")) {
+            List<? extends TypeMirror> args = ((DeclaredType) type).getTypeArguments();
+            boolean deep = args.size() == 1 && isCopyable(args.get(0));
+
+            if (isFinal) {
+                method.beginControlFlow("if(to.$L != from.$L)", name, name);
+                if (deep) {
+                    method.addStatement("to.$L.clear()", name)
+                            .addStatement("for($T e : from.$L) to.$L.add(e == null ? null : copy(e))", TypeName.get(args.get(0)), name, name);
+                } else {
+                    method.addStatement("to.$L.set(from.$L)", name, name);
+                }
+                method.endControlFlow();
+            } else if (deep) {
+                method.addStatement("to.$L = from.$L == null ? null : from.$L.map(e -> e == null ? null : copy(e))", name, name, name);
+            } else {
+                method.addStatement("to.$L = from.$L == null ? null : from.$L.copy()", name, name, name);
+            }
+        } else if (!isFinal) {
+            method.addStatement("to.$L = from.$L", name, name);
+        }
+    }
+
+    boolean isCopyable(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED && copyable.contains(fullName(toEl(type)));
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(Copyable.class.getCanonicalName());
+    }
+}
@@ -1,19 +1,25 @@
 package lonetrail.annotations.impl;
 
 import arc.*;
+import arc.files.*;
 import arc.graphics.g2d.*;
 import arc.struct.*;
 import arc.util.*;
 import com.squareup.javapoet.*;
 import lonetrail.annotations.Annotations.*;
 import lonetrail.annotations.*;
+import lonetrail.annotations.util.*;
 
 import javax.annotation.processing.*;
 import javax.lang.model.element.*;
+import javax.lang.model.util.*;
 import java.lang.annotation.*;
 import java.util.*;
 
 public class LoadProcessor extends BaseProcessor {
+    /** Sprites that the build derives from base sprites, relative to the root project. */
+    public static final String spriteManifest = "build/lonetrail/sprites.txt";
+
     {
         rounds = 1;
     }
@@ -51,9 +57,22 @@ public class LoadProcessor extends BaseProcessor {
                     .addType(outline);
 
             MethodSpec.Builder load = MethodSpec.methodBuilder("load").addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                    .addJavadoc("Loads the texture regions");
+                    .addJavadoc("Loads the texture regions")
+                    .addStatement("$T.begin($S)", cName(profilerName), "Regions.load");
 
+            // Every region is resolved by one loop over this table instead of a lookup statement each.
+            Seq<String> names = new Seq<>();
             ObjectSet<String> processed = new ObjectSet<>();
+            CodeBlock.Builder assign = CodeBlock.builder();
+            StringBuilder sprites = new StringBuilder();
+
+            // Source file of every hand-made sprite by its name, for the asset manifest. Derived sprites are only generated
+            // after compiling, so they're listed without a file rather than with whatever the last build left behind.
+            ObjectMap<String, Fi> files = new ObjectMap<>();
+            rootDir.child("assets/sprites").walk(file -> {
+                if (file.extEquals("png")) files.put(file.nameWithoutExtension(), file);
+            });
+
             for (Element e : roundEnv.getElementsAnnotatedWith(Load.class)) {
                 Load ann = annotation(e, Load.class);
 
@@ -69,9 +88,14 @@ public class LoadProcessor extends BaseProcessor {
                                     Modifier.PUBLIC, Modifier.STATIC
                             ).build()
                     );
-                    load.addStatement("$L = $T.atlas.find($S)", name + "Region", cName(Core.class), "lonetrail-" + reg);
+                    handle(spec, name + "Handle", names.size);
+                    assign.addStatement("$L = regions[$L]", name + "Region", names.size);
+                    names.add("lonetrail-" + reg);
+                    ManifestWriter.region("lonetrail-" + reg, files.get(reg));
 
                     if (ann.outline()) {
+                        sprites.append("outline ").append(reg).append(' ').append(ann.outlineColor()).append(' ').append(ann.outlineRadius()).append('\n');
+
                         spec.addField(
                                 FieldSpec.builder(
                                                 cName(TextureRegion.class),
@@ -87,20 +111,124 @@ public class LoadProcessor extends BaseProcessor {
                                         .build()
                         );
 
-                        load.addStatement("$L = $T.atlas.find($S)", name + "OutlineRegion", cName(Core.class), "lonetrail-" + reg + "-outline");
+                        handle(spec, name + "OutlineHandle", names.size);
+                        assign.addStatement("$L = regions[$L]", name + "OutlineRegion", names.size);
+                        names.add("lonetrail-" + reg + "-outline");
+                        if (files.containsKey(reg + "-outline")) {
+                            ManifestWriter.region("lonetrail-" + reg + "-outline", files.get(reg + "-outline"));
+                        } else {
+                            ManifestWriter.derived("lonetrail-" + reg + "-outline");
+                        }
                     }
                 }
             }
 
+            spec
+                    .addField(
+                            FieldSpec.builder(ArrayTypeName.of(String.class), "names", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                                    .addJavadoc("Atlas names of every region, indexed by their handles")
+                                    .initializer(stringArray(names))
+                                    .build()
+                    )
+                    .addField(
+                            FieldSpec.builder(ArrayTypeName.of(TextureRegion.class), "regions", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                                    .addJavadoc("Every region, indexed by their handles")
+                                    .initializer("new $T[$L]", cName(TextureRegion.class), names.size)
+                                    .build()
+                    );
+
+            load.addStatement("$T<$T> missing = null", cName(Seq.class), cName(String.class))
+                    .beginControlFlow("for(int i = 0; i < names.length; i++)")
+                    .addStatement("regions[i] = $T.atlas.find(names[i])", cName(Core.class))
+                    .beginControlFlow("if(!regions[i].found())")
+                    .addStatement("if(missing == null) missing = new $T<>()", cName(Seq.class))
+                    .addStatement("missing.add(names[i])")
+                    .endControlFlow()
+                    .endControlFlow()
+                    .addCode(lnew())
+                    .addCode(assign.build())
+                    .addCode(lnew())
+                    .addStatement("if(missing != null) $T.warn($S, missing.size, missing.toString($S))", cName(Log.class), "@ missing regions: @", ", ");
+
+            // Read by the `generateSprites` Gradle task, which draws the outlines so nobody has to by hand.
+            rootDir.child(spriteManifest).writeString(sprites.toString());
+
             write(spec
-                    .addMethod(load.build())
+                    .addMethod(load.addStatement("$T.end()", cName(profilerName)).build())
                     .build()
             );
+
+            for (TypeElement e : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(RegionSuffixes.class))) {
+                suffixed(simpleName(e), Seq.with(annotation(e, RegionSuffixes.class).value()));
+            }
+        }
+    }
+
+    void suffixed(String owner, Seq<String> suffixes) throws Exception {
+        TypeSpec.Builder spec = TypeSpec.classBuilder(owner + "Regions").addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addJavadoc("Suffixed texture regions of {@code $L}s", owner)
+                .addMethod(
+                        MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE)
+                                .addStatement("throw new $T()", cName(AssertionError.class))
+                                .build()
+                )
+                .addField(
+                        FieldSpec.builder(ArrayTypeName.of(String.class), "suffixes", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                                .initializer(stringArray(suffixes.map(s -> "-" + s)))
+                                .build()
+                );
+
+        for (int i = 0; i < suffixes.size; i++) {
+            spec.addField(
+                    FieldSpec.builder(TypeName.INT, Strings.kebabToCamel(suffixes.get(i)), Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                            .initializer("$L", i)
+                            .build()
+            );
+        }
+
+        spec.addMethod(MethodSpec.methodBuilder("find").addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addJavadoc("Finds every suffixed region of {@code name}, logging the missing ones together.\n@return The regions, indexed by this class' constants")
+                .returns(ArrayTypeName.of(TextureRegion.class))
+                .addParameter(cName(String.class), "name")
+                .addStatement("$T[] out = new $T[suffixes.length]", cName(TextureRegion.class), cName(TextureRegion.class))
+                .addStatement("$T key = new $T(name)", cName(StringBuilder.class), cName(StringBuilder.class))
+                .addStatement("$T<$T> missing = null", cName(Seq.class), cName(String.class))
+                .addCode(lnew())
+                .beginControlFlow("for(int i = 0; i < suffixes.length; i++)")
+                .addStatement("key.setLength(name.length())")
+                .addStatement("out[i] = $T.atlas.find(key.append(suffixes[i]).toString())", cName(Core.class))
+                .beginControlFlow("if(!out[i].found())")
+                .addStatement("if(missing == null) missing = new $T<>()", cName(Seq.class))
+                .addStatement("missing.add(suffixes[i])")
+                .endControlFlow()
+                .endControlFlow()
+                .addCode(lnew())
+                .addStatement("if(missing != null) $T.warn($S, name, missing.toString($S))", cName(Log.class), "'@' is missing regions: @", ", ")
+                .addStatement("return out")
+                .build()
+        );
+
+        write(spec.build());
+    }
+
+    static void handle(TypeSpec.Builder spec, String name, int index) {
+        spec.addField(
+                FieldSpec.builder(TypeName.INT, name, Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                        .initializer("$L", index)
+                        .build()
+        );
+    }
+
+    static CodeBlock stringArray(Seq<String> values) {
+        CodeBlock.Builder out = CodeBlock.builder().add("{");
+        for (int i = 0; i < values.size; i++) {
+            out.add(i == 0 ? "$S" : ", $S", values.get(i));
         }
+        return out.add("}").build();
     }
 
     @Override
     public Set<String> getSupportedAnnotationTypes() {
-        return Set.of(Load.class.getCanonicalName());
+        return Set.of(Load.class.getCanonicalName(), RegionSuffixes.class.getCanonicalName());
     }
 }
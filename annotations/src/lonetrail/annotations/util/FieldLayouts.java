@@ -0,0 +1,87 @@
+package lonetrail.annotations.util;
+
+import arc.files.*;
+import arc.struct.*;
+import arc.util.*;
+import com.squareup.javapoet.*;
+
+import javax.lang.model.element.*;
+
+/**
+ * Estimates the memory layout of generated classes, assuming a 64-bit HotSpot VM with compressed oops. HotSpot groups
+ * fields by size rather than keeping them in declaration order, so this mimics that and only keeps declaration order
+ * among fields of the same size; the numbers are estimates, not what {@code jol} would report.
+ */
+public class FieldLayouts {
+    public static final int headerSize = 12, oopSize = 4, cacheLine = 64;
+
+    final Seq<Layout> layouts = new Seq<>();
+
+    /** Lays out the instance fields in {@code fields} for {@code owner}, in their declaration order. */
+    public void add(String owner, Seq<FieldSpec> fields, ObjectSet<FieldSpec> hot) {
+        Seq<FieldSpec> instance = fields.select(f -> !f.modifiers.contains(Modifier.STATIC));
+
+        // Primitives go first, biggest first; references are packed after them.
+        Seq<FieldSpec> order = instance.copy();
+        order.sort(Structs.comparingInt(f -> f.type.isPrimitive() ? -size(f.type) : 0));
+
+        Layout layout = new Layout(owner);
+        IntSet lines = new IntSet();
+
+        int offset = headerSize;
+        for (FieldSpec field : order) {
+            int size = size(field.type);
+            offset = (offset + size - 1) / size * size;
+
+            if (hot.contains(field)) {
+                layout.hot.add(field.name);
+                for (int line = offset / cacheLine; line <= (offset + size - 1) / cacheLine; line++) lines.add(line);
+            }
+
+            if (!field.type.isPrimitive()) layout.refs++;
+            offset += size;
+        }
+
+        layout.size = (offset + 7) / 8 * 8;
+        layout.hotLines = lines.size;
+        layouts.add(layout);
+    }
+
+    /** Writes every recorded layout into {@code file}, biggest first. */
+    public void report(String title, Fi file) {
+        layouts.sort(Structs.comps(Structs.comparingInt(l -> -l.size), Structs.comparing(l -> l.owner)));
+
+        StringBuilder out = new StringBuilder("# ").append(title).append(" (estimated, compressed oops)\n");
+        for (Layout l : layouts) {
+            out.append(l.owner)
+                    .append("\tshallow=").append(l.size).append('B')
+                    .append("\trefs=").append(l.refs)
+                    .append("\thot-lines=").append(l.hotLines)
+                    .append("\thot=").append(l.hot.toString(", "))
+                    .append('\n');
+        }
+        file.writeString(out.toString());
+
+        Log.info("@: @ classes, report written to '@'", title, layouts.size, file.absolutePath());
+    }
+
+    /** @return The size in bytes a field of this type takes in an instance */
+    public static int size(TypeName type) {
+        type = type.withoutAnnotations();
+        if (type.equals(TypeName.LONG) || type.equals(TypeName.DOUBLE)) return 8;
+        if (type.equals(TypeName.INT) || type.equals(TypeName.FLOAT)) return 4;
+        if (type.equals(TypeName.SHORT) || type.equals(TypeName.CHAR)) return 2;
+        if (type.equals(TypeName.BYTE) || type.equals(TypeName.BOOLEAN)) return 1;
+        return oopSize;
+    }
+
+    static class Layout {
+        final String owner;
+        final Seq<String> hot = new Seq<>();
+        int size, refs, hotLines;
+
+        Layout(String owner) {
+            this.owner = owner;
+        }
+    }
+}
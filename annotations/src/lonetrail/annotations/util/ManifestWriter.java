@@ -0,0 +1,147 @@
+package lonetrail.annotations.util;
+
+import arc.files.*;
+import arc.struct.*;
+import arc.util.*;
+import com.squareup.javapoet.*;
+import lonetrail.annotations.*;
+
+import javax.lang.model.element.*;
+import java.util.zip.*;
+
+/**
+ * Collects the assets the generated code expects to exist, across processors, and builds the {@code AssetManifest}
+ * listing them with their sizes and CRC32 checksums. Entries are static, as {@code LoadProcessor} adds the regions while
+ * {@code AssetsProcessor} writes the manifest in a later round.
+ */
+public class ManifestWriter {
+    public static final int sound = 0, region = 1;
+
+    static final OrderedMap<String, Entry> entries = new OrderedMap<>();
+
+    /** Expects a sound file at the given path, relative to the assets root. */
+    public static void sound(String path, Fi file) {
+        entries.put(path, new Entry(sound, path, file));
+    }
+
+    /** Expects the given atlas region, packed from {@code file} if it's known. */
+    public static void region(String name, @Nullable Fi file) {
+        entries.put(name, new Entry(region, name, file));
+    }
+
+    /** Expects the given atlas region, packed from a sprite that's derived after compiling and so has no known file yet. */
+    public static void derived(String name) {
+        entries.put(name, new Entry(region, name, null));
+    }
+
+    public static void clear() {
+        entries.clear();
+    }
+
+    /** @return Every entry as a {@code kind name size crc32 path} line, for build tooling to skip unchanged files */
+    public static String report() {
+        StringBuilder out = new StringBuilder();
+        for (Entry e : entries.values()) {
+            out.append(e.kind == sound ? "sound" : "region").append(' ').append(e.name).append(' ')
+                    .append(e.size).append(' ').append(Long.toHexString(e.crc)).append(' ').append(e.path).append('\n');
+        }
+
+        return out.toString();
+    }
+
+    /** @return The manifest class, checking the assets with the given profiler */
+    public static TypeSpec build(String profiler) {
+        Seq<Entry> all = entries.values().toSeq();
+
+        // Biggest first, so assets can be preloaded in that order; the sort is stable, so the ones without a file keep theirs.
+        int[] bySize = new int[all.size];
+        Seq<Entry> sorted = all.copy().sort((a, b) -> Long.compare(b.size, a.size));
+        for (int i = 0; i < bySize.length; i++) bySize[i] = all.indexOf(sorted.get(i), true);
+
+        CodeBlock.Builder kinds = CodeBlock.builder().add("{"), names = CodeBlock.builder().add("{"), paths = CodeBlock.builder().add("{"),
+                sizes = CodeBlock.builder().add("{"), hashes = CodeBlock.builder().add("{"), order = CodeBlock.builder().add("{");
+        for (int i = 0; i < all.size; i++) {
+            Entry e = all.get(i);
+            String sep = i == 0 ? "" : ", ";
+
+            kinds.add(sep + "$L", e.kind);
+            names.add(sep + "$S", e.name);
+            paths.add(sep + "$S", e.path);
+            sizes.add(sep + "$LL", e.size);
+            hashes.add(sep + "0x$LL", Long.toHexString(e.crc));
+            order.add(sep + "$L", bySize[i]);
+        }
+
+        ClassName core = ClassName.get("arc", "Core"), vars = ClassName.get("mindustry", "Vars"), log = ClassName.get(Log.class), seq = ClassName.get(Seq.class);
+        return TypeSpec.classBuilder("AssetManifest").addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addJavadoc("Every sound and region the generated code expects, with the size and CRC32 checksum of its file at compile-time")
+                .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE)
+                        .addStatement("throw new $T()", AssertionError.class)
+                        .build()
+                )
+                .addField(constant(TypeName.INT, "sound", sound))
+                .addField(constant(TypeName.INT, "region", region))
+                .addField(array(TypeName.INT, "kinds", kinds, "Whether each asset is a {@link #sound} or a {@link #region}"))
+                .addField(array(ClassName.get(String.class), "names", names, "Asset path of each sound, or atlas name of each region"))
+                .addField(array(ClassName.get(String.class), "paths", paths, "Source file of each asset relative to the root project, or an empty string if it wasn't found or is derived at build time"))
+                .addField(array(TypeName.LONG, "sizes", sizes, "Byte size of each source file, or -1 if there's none"))
+                .addField(array(TypeName.LONG, "hashes", hashes, "CRC32 checksum of each source file, or 0 if there's none"))
+                .addField(array(TypeName.INT, "bySize", order, "Indices of every asset, biggest source file first"))
+                .addMethod(MethodSpec.methodBuilder("verify").addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                        .addJavadoc("Checks that every asset exists, logging the missing ones in one line. Sounds and regions aren't loaded on servers, so this always succeeds there.\n@return The number of missing assets")
+                        .returns(TypeName.INT)
+                        .addStatement("if($T.headless) return 0", vars)
+                        .addStatement("$T.begin($S)", ClassName.bestGuess(profiler), "AssetManifest.verify")
+                        .addCode(BaseProcessor.lnew())
+                        .addStatement("$T<$T> missing = new $T<>()", seq, String.class, seq)
+                        .beginControlFlow("for(int i = 0; i < names.length; i++)")
+                        .addStatement("boolean found = kinds[i] == sound ? $T.tree.get(names[i]).exists() : $T.atlas.has(names[i])", vars, core)
+                        .addStatement("if(!found) missing.add(names[i])")
+                        .endControlFlow()
+                        .addCode(BaseProcessor.lnew())
+                        .addStatement("if(missing.any()) $T.warn($S, missing.size, names.length, missing.toString($S))", log, "@ of @ assets are missing: @", ", ")
+                        .addStatement("$T.end()", ClassName.bestGuess(profiler))
+                        .addStatement("return missing.size")
+                        .build()
+                )
+                .build();
+    }
+
+    static FieldSpec constant(TypeName type, String name, int value) {
+        return FieldSpec.builder(type, name, Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL).initializer("$L", value).build();
+    }
+
+    static FieldSpec array(TypeName type, String name, CodeBlock.Builder values, String doc) {
+        return FieldSpec.builder(ArrayTypeName.of(type), name, Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                .addJavadoc(doc)
+                .initializer(values.add("}").build())
+                .build();
+    }
+
+    static class Entry {
+        final int kind;
+        final String name, path;
+        final long size, crc;
+
+        Entry(int kind, String name, @Nullable Fi file) {
+            this.kind = kind;
+            this.name = name;
+
+            if (file != null && file.exists()) {
+                String root = BaseProcessor.rootDir.absolutePath();
+                path = file.absolutePath().substring(root.length() + 1).replace('\\', '/');
+
+                byte[] bytes = file.readBytes();
+                CRC32 crc = new CRC32();
+                crc.update(bytes);
+
+                size = bytes.length;
+                this.crc = crc.getValue();
+            } else {
+                path = "";
+                size = -1;
+                this.crc = 0;
+            }
+        }
+    }
+}
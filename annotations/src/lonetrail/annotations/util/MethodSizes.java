@@ -0,0 +1,116 @@
+package lonetrail.annotations.util;
+
+import arc.files.*;
+import arc.struct.*;
+import arc.util.*;
+
+/**
+ * Rough bytecode size estimation for generated methods, used to keep them within HotSpot's inlining and compilation
+ * limits. The estimate is token-based and meant for ordering and thresholds, not exact sizes.
+ */
+public class MethodSizes {
+    /** HotSpot's {@code FreqInlineSize}; hot methods bigger than this don't get inlined into their callers. */
+    public static final int freqInlineSize = 325;
+    /** HotSpot's {@code HugeMethodLimit}; methods bigger than this are never JIT-compiled. */
+    public static final int hugeMethodLimit = 8000;
+
+    static final ObjectSet<String> branches = ObjectSet.with("if", "else", "for", "while", "do", "switch", "case", "break", "continue", "return", "throw");
+
+    final Seq<Entry> entries = new Seq<>();
+
+    /** @return The estimated bytecode size of a method body's source code */
+    public static int estimate(@Nullable String code) {
+        if (code == null) return 0;
+
+        int size = 0;
+        int len = code.length();
+        for (int i = 0; i < len; ) {
+            char c = code.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '/' && i + 1 < len && code.charAt(i + 1) == '/') {
+                while (i < len && code.charAt(i) != '\n') i++;
+            } else if (c == '/' && i + 1 < len && code.charAt(i + 1) == '*') {
+                int end = code.indexOf("*/", i + 2);
+                i = end == -1 ? len : end + 2;
+            } else if (c == '"' || c == '\'') {
+                // ldc
+                i++;
+                while (i < len && code.charAt(i) != c) i += code.charAt(i) == '\\' ? 2 : 1;
+                i++;
+                size += 2;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < len && Character.isJavaIdentifierPart(code.charAt(i))) i++;
+                String word = code.substring(start, i);
+
+                int next = i;
+                while (next < len && Character.isWhitespace(code.charAt(next))) next++;
+
+                if (word.equals("new")) {
+                    // new, dup, invokespecial
+                    size += 7;
+                } else if (branches.contains(word)) {
+                    size += 3;
+                } else if (next < len && code.charAt(next) == '(') {
+                    // aload_0 plus invoke*
+                    size += 4;
+                } else {
+                    // aload_0 plus getfield, or a local load
+                    size += 2;
+                }
+            } else if (Character.isDigit(c)) {
+                while (i < len && (Character.isLetterOrDigit(code.charAt(i)) || code.charAt(i) == '.')) i++;
+                size += 2;
+            } else {
+                if (c != '(' && c != ')' && c != '{' && c != '}' && c != ',' && c != '.' && c != ';' && c != ':') size++;
+                i++;
+            }
+        }
+
+        return size;
+    }
+
+    public void record(String owner, String method, int size) {
+        entries.add(new Entry(owner, method, size));
+    }
+
+    /** Writes every recorded method into {@code file}, largest first, and logs the {@code top} largest ones. */
+    public void report(String title, Fi file, int top) {
+        entries.sort(Structs.comps(Structs.comparingInt(e -> -e.size), Structs.comparing(e -> e.owner + "#" + e.method)));
+
+        StringBuilder out = new StringBuilder("# ").append(title).append(" (estimated bytecode size)\n");
+        for (Entry e : entries) {
+            out.append(e.size).append('\t').append(e.owner).append('#').append(e.method);
+            if (e.size > hugeMethodLimit) {
+                out.append("\t(never JIT-compiled)");
+            } else if (e.size > freqInlineSize) {
+                out.append("\t(not inlined when hot)");
+            }
+            out.append('\n');
+        }
+        file.writeString(out.toString());
+
+        Log.info("@: @ methods, report written to '@'", title, entries.size, file.absolutePath());
+        for (int i = 0; i < Math.min(top, entries.size); i++) {
+            Entry e = entries.get(i);
+            if (e.size > hugeMethodLimit) {
+                Log.warn("  @#@: ~@ bytes, over HugeMethodLimit", e.owner, e.method, e.size);
+            } else {
+                Log.info("  @#@: ~@ bytes", e.owner, e.method, e.size);
+            }
+        }
+    }
+
+    static class Entry {
+        final String owner, method;
+        final int size;
+
+        Entry(String owner, String method, int size) {
+            this.owner = owner;
+            this.method = method;
+            this.size = size;
+        }
+    }
+}
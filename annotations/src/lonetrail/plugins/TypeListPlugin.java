@@ -15,11 +15,14 @@ import lonetrail.annotations.Annotations.*;
 
 /**
  * Gathers all declared non-anonymous classes and packages and appends them to fields with {@code Seq.<String>with()}
- * initializer and annotated with {@link ListClasses} or {@link ListPackages}
+ * initializer and annotated with {@link ListClasses} or {@link ListPackages}. Classes are sorted by their package and
+ * then by their name, so every package's classes are next to each other and can be binary-searched at runtime.
  */
 public class TypeListPlugin implements Plugin {
     Seq<JCMethodInvocation> classes = new Seq<>(), packages = new Seq<>();
     Seq<String> classDefs = new Seq<>(), packDefs = new Seq<>();
+    ObjectSet<String> classSet = new ObjectSet<>(), packSet = new ObjectSet<>();
+    boolean sorted;
     ObjectMap<JCMethodInvocation, List<JCExpression>> classArgs = new ObjectMap<>(), packArgs = new ObjectMap<>();
 
     @Override
@@ -72,12 +75,12 @@ public class TypeListPlugin implements Plugin {
                                 }
 
                                 String cname = builder.toString();
-                                if (!classDefs.contains(cname)) {
+                                if (classSet.add(cname)) {
                                     classDefs.add(cname);
                                 }
 
                                 String pname = current.getQualifiedName().toString();
-                                if (!packDefs.contains(pname)) {
+                                if (packSet.add(pname)) {
                                     packDefs.add(pname);
                                 }
                             }
@@ -91,6 +94,12 @@ public class TypeListPlugin implements Plugin {
             @Override
             public void started(TaskEvent event) {
                 if (event.getKind() == Kind.ANALYZE) {
+                    if (!sorted) {
+                        classDefs.sort(TypeListPlugin::compareClasses);
+                        packDefs.sort();
+                        sorted = true;
+                    }
+
                     classes.each(e -> e.args = classArgs.get(e, () -> List.from(Seq.with(e.args).addAll(classDefs.map(maker::Literal)))));
                     packages.each(e -> e.args = packArgs.get(e, () -> List.from(Seq.with(e.args).addAll(packDefs.map(maker::Literal)))));
                 }
@@ -98,6 +107,13 @@ public class TypeListPlugin implements Plugin {
         });
     }
 
+    /** Orders class names by their package first, then by their name. Has to match {@code lonetrail.core.ClassIndex}. */
+    public static int compareClasses(String a, String b) {
+        int pa = a.lastIndexOf('.'), pb = b.lastIndexOf('.');
+        int pack = a.substring(0, Math.max(pa, 0)).compareTo(b.substring(0, Math.max(pb, 0)));
+        return pack != 0 ? pack : a.compareTo(b);
+    }
+
     @Override
     public boolean autoStart() {
         return true;
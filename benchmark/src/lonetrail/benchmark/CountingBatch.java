@@ -0,0 +1,32 @@
+package lonetrail.benchmark;
+
+import arc.graphics.*;
+import arc.graphics.g2d.*;
+
+/** A sprite batch that only counts what it's asked to draw, so drawing code can be measured without a graphics context. */
+public class CountingBatch extends Batch {
+    public long sprites, vertices, flushes;
+
+    public void reset() {
+        sprites = vertices = flushes = 0;
+    }
+
+    @Override
+    protected void draw(TextureRegion region, float x, float y, float originX, float originY, float width, float height, float rotation) {
+        sprites++;
+    }
+
+    @Override
+    protected void draw(Texture texture, float[] spriteVertices, int offset, int count) {
+        vertices += count;
+    }
+
+    @Override
+    protected void flush() {
+        flushes++;
+    }
+
+    @Override
+    public void dispose() {
+    }
+}
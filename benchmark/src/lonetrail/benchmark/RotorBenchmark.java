@@ -0,0 +1,111 @@
+package lonetrail.benchmark;
+
+import arc.*;
+import arc.graphics.*;
+import arc.graphics.g2d.*;
+import arc.util.*;
+import lonetrail.entities.*;
+import lonetrail.gen.*;
+import lonetrail.type.unit.*;
+import mindustry.*;
+import mindustry.core.*;
+
+/**
+ * Times {@link LUnitType#drawRotors} without a graphics context, with a {@link CountingBatch} in place of the
+ * sprite batch. Every detail tier, culled rotors included, is measured with spinning and with timed rotors; run it with
+ * {@code gradlew benchmark}.
+ */
+public class RotorBenchmark {
+    static final int copters = 2000, warmup = 200, frames = 1000;
+
+    /**
+     * Screen pixels per world unit that put the benchmark's 12 world unit rotors in every tier: 48, 18 and 6 pixels
+     * wide, and the full tier again with the camera looking away from every copter.
+     */
+    static final String[] tiers = {"full", "merged", "top", "culled"};
+    static final float[] tierPixels = {4f, 1.5f, 0.5f, 4f};
+
+    public static void main(String[] args) {
+        Vars.headless = true;
+        Vars.content = new ContentLoader();
+        Core.bundle = I18NBundle.createEmptyBundle();
+        Core.camera = new Camera();
+        // Big enough for every copter to be on screen, so nothing is culled.
+        Core.camera.width = Core.camera.height = copters * 16f;
+
+        CountingBatch batch = new CountingBatch();
+        Core.batch = batch;
+
+        Log.info("@ copters, @ frames each", copters, frames);
+        for (boolean timed : new boolean[]{false, true}) {
+            LUnitType type = type(timed);
+            CopterUnit[] units = units(type);
+
+            for (int tier = 0; tier < tiers.length; tier++) {
+                float pixels = tierPixels[tier];
+                if (tiers[tier].equals("culled")) Core.camera.position.set(-Core.camera.width, -Core.camera.height);
+
+                for (int i = 0; i < warmup; i++) frame(type, units, pixels);
+
+                batch.reset();
+                long start = Time.nanos();
+                for (int i = 0; i < frames; i++) frame(type, units, pixels);
+                long elapsed = Time.timeSinceNanos(start);
+
+                Log.info("@ rotors, @ tier: @ ns and @ sprites per copter",
+                        timed ? "Timed" : "Spinning", tiers[tier],
+                        Strings.fixed(elapsed / (float) (frames * copters), 1), Strings.fixed(batch.sprites / (float) (frames * copters), 1));
+
+                Core.camera.position.setZero();
+            }
+        }
+    }
+
+    static void frame(LUnitType type, CopterUnit[] units, float pixels) {
+        Time.time += 1f;
+        if (type.rotorBatch != null) type.rotorBatch.update(1f);
+
+        for (CopterUnit unit : units) type.drawRotors(unit, pixels);
+    }
+
+    static LUnitType type(boolean timed) {
+        TextureRegion region = new TextureRegion();
+        region.width = region.height = 48;
+
+        LUnitType type = new LUnitType(timed ? "benchmark-timed" : "benchmark");
+        type.timedRotors = timed;
+        type.softShadowRegion = region;
+        type.rotors.add(new Rotor("benchmark-rotor") {{
+            x = 6f;
+            y = 3f;
+            mirror = true;
+        }}, new Rotor("benchmark-rotor") {{
+            y = -8f;
+            bladeCount = 3;
+        }});
+
+        type.initRotors();
+        for (Rotor rotor : type.rotors) {
+            rotor.bladeRegion = rotor.bladeOutlineRegion = rotor.bladeGhostRegion = rotor.bladeShadeRegion = rotor.bladeMergedRegion = rotor.topRegion = region;
+            rotor.size = region.width * Draw.scl;
+            rotor.shadowSize = rotor.size * 1.2f;
+        }
+
+        return type;
+    }
+
+    static CopterUnit[] units(LUnitType type) {
+        CopterUnit[] units = new CopterUnit[copters];
+        for (int i = 0; i < copters; i++) {
+            CopterUnit unit = CopterUnit.create();
+            unit.type = type;
+            unit.set(i % 64 * 16f, i / 64 * 16f);
+            unit.rotation = i * 7f;
+            if (type.rotorBatch != null) unit.rotorSlot(type.rotorBatch.add(unit.id));
+
+            units[i] = unit;
+        }
+
+        return units;
+    }
+}
@@ -0,0 +1,91 @@
+package lonetrail.audio;
+
+import arc.*;
+import arc.audio.*;
+import arc.files.*;
+import arc.struct.*;
+
+import java.util.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * A sound that's only decoded when it's first played. Decoded sounds are kept in a least-recently-played cache bounded
+ * by {@link #fileBudget}, and the ones that haven't been played for the longest are freed once it's exceeded, unless
+ * they're still playing; they're decoded again if they're played later.
+ */
+public class LazySound extends Sound {
+    /**
+     * Maximum total size of the files of the sounds that are kept decoded at once, in bytes. This counts the compressed
+     * files, as the decoded size isn't known; decoded sounds take several times as much memory.
+     */
+    public static long fileBudget = 8L * 1024 * 1024;
+
+    /** Decoded sounds, from least to most recently played. */
+    private static final LinkedHashMap<LazySound, Boolean> decoded = new LinkedHashMap<>(16, 0.75f, true);
+    private static long used;
+
+    public final String path;
+    private long size;
+    /** Voices this sound was played on, which may still be playing or looping. */
+    private final IntSeq voices = new IntSeq();
+
+    public LazySound(String path) {
+        this.path = path;
+    }
+
+    /** @return Whether generated sounds are loaded lazily; on by default on mobile, where memory is tight */
+    public static boolean enabled() {
+        return Core.settings.getBool("lonetrail-lazy-sounds", mobile);
+    }
+
+    @Override
+    public int play(float volume, float pitch, float pan, boolean loop, boolean checkFrame) {
+        if (headless) return -1;
+
+        if (decoded.get(this) == null) decode();
+
+        int voice = super.play(volume, pitch, pan, loop, checkFrame);
+        if (voice >= 0) {
+            playing();
+            voices.add(voice);
+        }
+
+        return voice;
+    }
+
+    /** @return Whether any voice of this sound is still playing, forgetting the ones that stopped */
+    boolean playing() {
+        for (int i = voices.size - 1; i >= 0; i--) {
+            if (!Core.audio.isPlaying(voices.items[i])) voices.removeIndex(i);
+        }
+
+        return !voices.isEmpty();
+    }
+
+    void decode() {
+        Fi file = tree.get(path);
+        load(file);
+
+        size = file.length();
+        decoded.put(this, true);
+        used += size;
+
+        // Never evicts the sound that's just been decoded, even if it alone exceeds the budget, nor sounds that are still
+        // playing, which would cut them off.
+        Iterator<LazySound> it = decoded.keySet().iterator();
+        while (used > fileBudget && it.hasNext()) {
+            LazySound oldest = it.next();
+            if (oldest == this || oldest.playing()) continue;
+
+            it.remove();
+            oldest.free();
+        }
+    }
+
+    void free() {
+        used -= size;
+        voices.clear();
+        dispose();
+    }
+}
@@ -0,0 +1,22 @@
+package lonetrail.audio;
+
+import arc.audio.*;
+import lonetrail.core.*;
+
+/**
+ * A sound decoded by a {@link LoadPlan} worker. It can't be played until the plan is done, as the decoded sound isn't
+ * safely visible to other threads before.
+ */
+public class PlannedSound extends Sound {
+    public final LoadPlan plan;
+
+    public PlannedSound(LoadPlan plan) {
+        this.plan = plan;
+    }
+
+    @Override
+    public int play(float volume, float pitch, float pan, boolean loop, boolean checkFrame) {
+        if (!plan.done()) return -1;
+        return super.play(volume, pitch, pan, loop, checkFrame);
+    }
+}
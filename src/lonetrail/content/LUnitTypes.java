@@ -9,8 +9,8 @@ import lonetrail.gen.*;
 public class LUnitTypes {
     public static @EntityPoint(MechUnit.class) UnitType largeMech;
 
-    public static @EntityDef({Unitc.class, Copterc.class}) UnitType caelifera;
-    public static @EntityDef({Unitc.class, Payloadc.class, Legsc.class, BuildingTetherc.class}) UnitType legsMech;
+    public static @Indexed @EntityDef({Unitc.class, Copterc.class}) UnitType caelifera;
+    public static @EntityDef({Unitc.class, Payloadc.class, Legsc.class, BuildingTetherc.class, Dormantc.class}) UnitType legsMech;
 
     public static void load() {
         largeMech = new LUnitType("large-mech");
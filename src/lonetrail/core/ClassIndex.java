@@ -0,0 +1,116 @@
+package lonetrail.core;
+
+import arc.func.*;
+import arc.struct.*;
+import arc.util.*;
+
+import java.util.*;
+
+/**
+ * Looks up the mod's classes listed in {@link LoneTrailMod#classes} by name in logarithmic time, and every package's
+ * classes as one contiguous range. Classes are only loaded when first asked for, and aren't initialized then.
+ */
+public final class ClassIndex {
+    /** Orders class names by their package first, then by their name, the same as the compile-time list is. */
+    public static final Comparator<String> order = (a, b) -> {
+        // Compares the packages in place, as this runs for every step of a lookup.
+        int pa = Math.max(a.lastIndexOf('.'), 0), pb = Math.max(b.lastIndexOf('.'), 0);
+        for (int i = 0, n = Math.min(pa, pb); i < n; i++) {
+            char ca = a.charAt(i), cb = b.charAt(i);
+            if (ca != cb) return ca - cb;
+        }
+
+        return pa != pb ? pa - pb : a.compareTo(b);
+    };
+
+    private static String[] names;
+    private static Class<?>[] loaded;
+    private static final ObjectMap<String, int[]> ranges = new ObjectMap<>();
+
+    private ClassIndex() {
+        throw new AssertionError();
+    }
+
+    /** @return The index of the class with the given name, or {@code -1} if it isn't one of the mod's classes */
+    public static int indexOf(String name) {
+        build();
+
+        int index = Arrays.binarySearch(names, name, order);
+        return index >= 0 ? index : -1;
+    }
+
+    public static boolean contains(String name) {
+        return indexOf(name) != -1;
+    }
+
+    public static int size() {
+        build();
+        return names.length;
+    }
+
+    public static String name(int index) {
+        build();
+        return names[index];
+    }
+
+    /** @return The class with the given name, or {@code null} if it isn't one of the mod's classes */
+    public static @Nullable Class<?> get(String name) {
+        int index = indexOf(name);
+        return index == -1 ? null : get(index);
+    }
+
+    public static Class<?> get(int index) {
+        build();
+
+        Class<?> type = loaded[index];
+        if (type == null) {
+            try {
+                loaded[index] = type = Class.forName(names[index], false, ClassIndex.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        return type;
+    }
+
+    /** Calls {@code cons} with the index of every class directly in the given package. */
+    public static void each(String pack, Intc cons) {
+        build();
+
+        int[] range = ranges.get(pack);
+        if (range == null) return;
+
+        for (int i = range[0]; i < range[1]; i++) cons.get(i);
+    }
+
+    /** @return The package of the class with the given name, or an empty string if it's in the default package */
+    public static String packageOf(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot == -1 ? "" : name.substring(0, dot);
+    }
+
+    static synchronized void build() {
+        if (names != null) return;
+
+        String[] all = LoneTrailMod.classes.toArray(String.class);
+        // The list is sorted at compile-time; only sort it again if something was prepended by hand.
+        for (int i = 1; i < all.length; i++) {
+            if (order.compare(all[i - 1], all[i]) > 0) {
+                Arrays.sort(all, order);
+                break;
+            }
+        }
+
+        for (int i = 0; i < all.length; ) {
+            String pack = packageOf(all[i]);
+
+            int start = i;
+            while (i < all.length && packageOf(all[i]).equals(pack)) i++;
+            ranges.put(pack, new int[]{start, i});
+        }
+
+        loaded = new Class[all.length];
+        names = all;
+    }
+}
@@ -0,0 +1,87 @@
+package lonetrail.core;
+
+import arc.*;
+import arc.func.*;
+import arc.struct.*;
+import arc.util.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Runs independent loading tasks on a pool of worker threads. Tasks must not depend on each other nor touch anything
+ * that isn't thread-safe. Once every one of them has finished, the plan is published on the main thread: only then is
+ * {@link #done()} true, and everything the tasks wrote is visible to any thread that saw it being true.
+ */
+public class LoadPlan {
+    /** Maximum number of worker threads a plan uses. */
+    public static int threads = Math.max(OS.cores - 1, 1);
+
+    public final String name;
+
+    /** Called on the main thread with the fraction of finished tasks, each time one more of them finishes. */
+    public @Nullable Floatc progress;
+
+    private final Seq<Runnable> tasks = new Seq<>();
+    private final AtomicInteger finished = new AtomicInteger();
+    private long start;
+    private float time = -1f;
+    private volatile boolean done;
+
+    public LoadPlan(String name) {
+        this.name = name;
+    }
+
+    public void add(Runnable task) {
+        tasks.add(task);
+    }
+
+    /** Starts running every added task. Tasks added afterwards are ignored. */
+    public void start() {
+        int total = tasks.size;
+        start = Time.nanos();
+        if (total == 0) {
+            if (progress != null) progress.get(1f);
+            publish();
+            return;
+        }
+
+        ExecutorService executor = Threads.executor(name, Math.min(threads, total));
+        for (Runnable task : tasks) {
+            executor.submit(() -> {
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    Log.err("[@] A loading task failed.", name);
+                    Log.err(t);
+                }
+
+                // Posts may land out of order, so the counter is read again on the main thread to keep progress increasing.
+                int count = finished.incrementAndGet();
+                if (progress != null) Core.app.post(() -> progress.get(finished.get() / (float) total));
+                if (count == total) Core.app.post(this::publish);
+            });
+        }
+
+        executor.shutdown();
+    }
+
+    /** @return Whether every task finished and the plan was published on the main thread */
+    public boolean done() {
+        return done;
+    }
+
+    /** @return Milliseconds from starting to every task being finished, or {@code -1} if they haven't yet */
+    public float time() {
+        return time;
+    }
+
+    void publish() {
+        long nanos = Time.timeSinceNanos(start);
+        time = nanos / (float) Time.nanosPerMilli;
+        done = true;
+
+        StartupProfiler.record(name + ".tasks", nanos);
+        Log.debug("[@] Loaded @ assets in @ms on @ threads.", name, tasks.size, Strings.fixed(time, 2), Math.min(threads, tasks.size));
+    }
+}
@@ -4,6 +4,7 @@ import arc.*;
 import arc.struct.*;
 import arc.util.*;
 import lonetrail.content.*;
+import lonetrail.entities.*;
 import lonetrail.gen.*;
 import mindustry.game.EventType.*;
 import mindustry.mod.*;
@@ -20,21 +21,54 @@ public class LoneTrailMod extends Mod {
     public static @ListPackages Seq<String> packages = Seq.with();
 
     public LoneTrailMod() {
+        StartupProfiler.begin("construct");
+
         Events.on(ContentInitEvent.class, e -> {
             if (!headless) {
                 Regions.load();
             }
         });
+
+        Events.on(ResetEvent.class, e -> {
+            Tethers.clear();
+            TransformHierarchy.clear();
+            TimerWheel.clear();
+            RotorBatch.clearAll();
+        });
+
+        Events.run(Trigger.afterGameUpdate, Tethers::update);
+        Events.run(Trigger.afterGameUpdate, TransformHierarchy::update);
+        Events.run(Trigger.afterGameUpdate, TimerWheel::update);
+        Events.run(Trigger.draw, RotorBatch::updateAll);
+
+        StartupProfiler.end();
     }
 
     @Override
     public void loadContent() {
-        LUnitTypes.load();
+        StartupProfiler.begin("loadContent");
+        LSounds.load();
+        StartupProfiler.run("LUnitTypes.load", LUnitTypes::load);
 
         EntityRegister.init();
+        StartupProfiler.end();
     }
 
     @Override
     public void init() {
+        AssetManifest.verify();
+        StartupProfiler.finish();
+    }
+
+    @Override
+    public void registerServerCommands(CommandHandler handler) {
+        handler.register("entitymetrics", "[reset]", "Dumps or resets per-component timings of generated entities.", args -> {
+            if (args.length > 0 && args[0].equals("reset")) {
+                EntityMetrics.reset();
+                Log.info("Entity metrics reset.");
+            } else {
+                EntityMetrics.dump();
+            }
+        });
     }
 }
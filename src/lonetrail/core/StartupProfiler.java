@@ -0,0 +1,130 @@
+package lonetrail.core;
+
+import arc.struct.*;
+import arc.util.*;
+import arc.util.serialization.*;
+import arc.util.serialization.Jval.*;
+
+import java.lang.management.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Times the phases of loading the mod: wall time, CPU time and allocated bytes of the loading thread. The mod's entry
+ * points and generated {@code load()} methods report into this, and {@link #finish()} prints every phase and writes them
+ * to {@code lonetrail/startup.json} in the data directory. Only enabled on servers, or with
+ * {@code -Dlonetrail.profileStartup}, as the measurements rely on a HotSpot JVM.
+ */
+public final class StartupProfiler {
+    public static final boolean enabled = headless || System.getProperty("lonetrail.profileStartup") != null;
+
+    private static final Seq<Phase> phases = new Seq<>(), open = new Seq<>();
+    private static boolean finished;
+
+    private StartupProfiler() {
+        throw new AssertionError();
+    }
+
+    /** Starts a phase, nested in the phase that's currently running if any. Must be followed by {@link #end()}. */
+    public static void begin(String name) {
+        if (!enabled || finished) return;
+
+        Phase phase = new Phase(name, open.size);
+        phase.wall = Time.nanos();
+        phase.cpu = Probe.cpu();
+        phase.alloc = Probe.alloc();
+
+        phases.add(phase);
+        open.add(phase);
+    }
+
+    /** Ends the innermost running phase. */
+    public static void end() {
+        if (!enabled || finished || open.isEmpty()) return;
+
+        Phase phase = open.pop();
+        phase.wall = Time.nanos() - phase.wall;
+        if (phase.cpu >= 0) phase.cpu = Probe.cpu() - phase.cpu;
+        if (phase.alloc >= 0) phase.alloc = Probe.alloc() - phase.alloc;
+    }
+
+    /**
+     * Records a phase that ran off the loading thread, of which only the wall time is known. Phases that finish after
+     * {@link #finish()} aren't recorded.
+     */
+    public static void record(String name, long wall) {
+        if (!enabled || finished) return;
+
+        Phase phase = new Phase(name, open.size);
+        phase.wall = wall;
+        phase.cpu = phase.alloc = -1;
+        phases.add(phase);
+    }
+
+    public static void run(String name, Runnable run) {
+        begin(name);
+        run.run();
+        end();
+    }
+
+    /** Ends every running phase, then prints and writes the breakdown. Does nothing after the first call. */
+    public static void finish() {
+        if (!enabled || finished) return;
+        while (open.any()) end();
+        finished = true;
+
+        StringBuilder out = new StringBuilder("Startup phases (wall / cpu / allocated):");
+        Jval list = Jval.newArray();
+        for (Phase phase : phases) {
+            out.append("\n").append("  ".repeat(phase.depth + 1)).append(phase.name).append(": ")
+                    .append(Strings.fixed(phase.wall / (float) Time.nanosPerMilli, 2)).append("ms / ")
+                    .append(phase.cpu < 0 ? "?" : Strings.fixed(phase.cpu / (float) Time.nanosPerMilli, 2) + "ms").append(" / ")
+                    .append(phase.alloc < 0 ? "?" : phase.alloc / 1024 + "KiB");
+
+            Jval value = Jval.newObject();
+            value.put("name", phase.name);
+            value.put("depth", phase.depth);
+            value.put("wallNanos", phase.wall);
+            value.put("cpuNanos", phase.cpu);
+            value.put("allocatedBytes", phase.alloc);
+            list.add(value);
+        }
+
+        Log.info(out);
+
+        try {
+            dataDirectory.child("lonetrail/startup.json").writeString(list.toString(Jformat.formatted));
+        } catch (Throwable t) {
+            Log.err("Couldn't write the startup profile.");
+            Log.err(t);
+        }
+    }
+
+    static class Phase {
+        final String name;
+        final int depth;
+        long wall, cpu, alloc;
+
+        Phase(String name, int depth) {
+            this.name = name;
+            this.depth = depth;
+        }
+    }
+
+    /** Kept apart so that runtimes without {@code java.lang.management} never load it unless the profiler is enabled. */
+    static class Probe {
+        static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        static final boolean cpu = threads.isCurrentThreadCpuTimeSupported();
+        static final boolean alloc = threads instanceof com.sun.management.ThreadMXBean t && t.isThreadAllocatedMemorySupported();
+
+        /** @return CPU time of the current thread in nanoseconds, or {@code -1} if that isn't supported */
+        static long cpu() {
+            return cpu ? threads.getCurrentThreadCpuTime() : -1;
+        }
+
+        /** @return Bytes allocated by the current thread so far, or {@code -1} if that isn't supported */
+        static long alloc() {
+            return alloc ? ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+        }
+    }
+}
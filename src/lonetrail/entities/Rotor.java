@@ -2,15 +2,20 @@ package lonetrail.entities;
 
 import arc.*;
 import arc.graphics.g2d.*;
-import mindustry.io.*;
+import lonetrail.annotations.Annotations.*;
+import lonetrail.gen.*;
 
 /**
  * Defines a rotor type.
  */
+@Copyable
+@RegionSuffixes({"blade", "blade-outline", "blade-ghost", "blade-shade", "top"})
 public class Rotor {
     public final String name;
 
     public TextureRegion bladeRegion, bladeOutlineRegion, bladeGhostRegion, bladeShadeRegion, topRegion;
+    /** Every blade in one sprite, drawn instead of each blade when the rotor is small on screen. Falls back to the ghost sprite. */
+    public TextureRegion bladeMergedRegion;
 
     public boolean mirror;
     public float x;
@@ -25,30 +30,37 @@ public class Rotor {
 
     public int bladeCount = 4;
 
+    /** Angle of every blade relative to the first one. Set in {@link #init()}. */
+    public float[] bladeAngles = {};
+    /** Size of the blades and of the soft shadow under the rotor, in world units. Set in {@link #load()}. */
+    public float size, shadowSize;
+
     public Rotor(String name){
         this.name = name;
     }
 
-    public void load(){
-        bladeRegion = Core.atlas.find(name + "-blade");
-        bladeOutlineRegion = Core.atlas.find(name + "-blade-outline");
-        bladeGhostRegion = Core.atlas.find(name + "-blade-ghost");
-        bladeShadeRegion = Core.atlas.find(name + "-blade-shade");
-        topRegion = Core.atlas.find(name + "-top");
+    public void init(){
+        bladeAngles = new float[bladeCount];
+        for(int i = 0; i < bladeCount; i++){
+            bladeAngles[i] = 360f / bladeCount * i;
+        }
     }
 
-    public Rotor copy(){
-        return JsonIO.copy(this, new Rotor(name));
-    }
+    public void load(){
+        TextureRegion[] regions = RotorRegions.find(name);
+        bladeRegion = regions[RotorRegions.blade];
+        bladeOutlineRegion = regions[RotorRegions.bladeOutline];
+        bladeGhostRegion = regions[RotorRegions.bladeGhost];
+        bladeShadeRegion = regions[RotorRegions.bladeShade];
+        topRegion = regions[RotorRegions.top];
+        // Optional, so it's not part of the suffixes that are reported if missing.
+        bladeMergedRegion = Core.atlas.find(name + "-blade-merged", bladeGhostRegion);
 
-    /** Rotor entities that are mounted in units or other stuff. */
-    public static class RotorMount{
-        public final Rotor rotor;
-        public float rotorRot;
-        public float rotorShadeRot;
+        size = Math.max(bladeRegion.width, bladeRegion.height) * Draw.scl;
+        shadowSize = size * 1.2f;
+    }
 
-        public RotorMount(Rotor rotor){
-            this.rotor = rotor;
-        }
+    public Rotor copy(){
+        return Copies.copy(this);
     }
-}
\ No newline at end of file
+}
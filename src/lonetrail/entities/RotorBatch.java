@@ -0,0 +1,142 @@
+package lonetrail.entities;
+
+import arc.struct.*;
+import arc.util.*;
+
+import java.util.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Rotor angles of every copter of one unit type, packed into one array. Every copter takes a slot holding the angle and
+ * shade angle of each of its rotors, and all slots are spun at once while drawing. Rotors are purely cosmetic, so this
+ * doesn't happen on servers, and only happens every few frames when zoomed far out.
+ */
+public class RotorBatch {
+    static final Seq<RotorBatch> all = new Seq<>();
+
+    /** Below this camera scale, rotors are only spun every {@link #farInterval} frames. */
+    public static float farScale = 2f;
+    public static int farInterval = 3;
+
+    private static float accumulated;
+    private static int frames;
+
+    public final Rotor[] rotors;
+
+    final int stride;
+    final float[] speeds, shadeSpeeds, offsets;
+
+    /** Angle and shade angle of every rotor, {@link #stride} floats per slot. */
+    float[] angles;
+    /** Rotor speed scale of every slot; free slots spin at zero speed. */
+    float[] scales;
+    /** ID of the copter in every slot, or -1 if it's free. */
+    int[] owners;
+    final IntSeq free = new IntSeq();
+    int used;
+
+    public RotorBatch(Rotor[] rotors) {
+        this.rotors = rotors;
+
+        stride = rotors.length * 2;
+        speeds = new float[rotors.length];
+        shadeSpeeds = new float[rotors.length];
+        offsets = new float[rotors.length];
+        for (int i = 0; i < rotors.length; i++) {
+            speeds[i] = rotors[i].speed;
+            shadeSpeeds[i] = rotors[i].shadeSpeed;
+            offsets[i] = rotors[i].rotOffset;
+        }
+
+        angles = new float[stride * 16];
+        scales = new float[16];
+        owners = new int[16];
+
+        all.add(this);
+    }
+
+    /** @return The slot of a new copter, to be passed to the other methods and freed with {@link #remove(int, int)} */
+    public int add(int owner) {
+        int slot;
+        if (free.isEmpty()) {
+            if (used == scales.length) {
+                scales = Arrays.copyOf(scales, used * 2);
+                owners = Arrays.copyOf(owners, used * 2);
+                angles = Arrays.copyOf(angles, used * 2 * stride);
+            }
+            slot = used++;
+        } else {
+            slot = free.pop();
+        }
+
+        int base = slot * stride;
+        for (int i = 0; i < rotors.length; i++) {
+            angles[base + i * 2] = offsets[i];
+            angles[base + i * 2 + 1] = offsets[i];
+        }
+        scales[slot] = 1f;
+        owners[slot] = owner;
+
+        return slot;
+    }
+
+    /** Frees the slot, unless it's not the given copter's anymore because every slot was cleared since it was taken. */
+    public void remove(int slot, int owner) {
+        if (slot < 0 || slot >= used || owners[slot] != owner) return;
+
+        scales[slot] = 0f;
+        owners[slot] = -1;
+        free.add(slot);
+    }
+
+    public void scale(int slot, float scale) {
+        scales[slot] = scale;
+    }
+
+    public float rotation(int slot, int rotor) {
+        return angles[slot * stride + rotor * 2];
+    }
+
+    public float shadeRotation(int slot, int rotor) {
+        return angles[slot * stride + rotor * 2 + 1];
+    }
+
+    public void update(float delta) {
+        float[] angles = this.angles, scales = this.scales;
+        int rotorCount = rotors.length;
+
+        for (int slot = 0, base = 0; slot < used; slot++, base += stride) {
+            float scl = scales[slot] * delta;
+            for (int i = 0; i < rotorCount; i++) {
+                int at = base + i * 2;
+                angles[at] = (angles[at] + speeds[i] * scl) % 360f;
+                angles[at + 1] = (angles[at + 1] + shadeSpeeds[i] * delta) % 360f;
+            }
+        }
+    }
+
+    public void clear() {
+        free.clear();
+        used = 0;
+    }
+
+    /** Spins the rotors of every batch, to be called once per drawn frame. */
+    public static void updateAll() {
+        if (state.isPaused()) return;
+
+        accumulated += Time.delta;
+        if (++frames < (renderer.getScale() < farScale ? farInterval : 1)) return;
+
+        for (RotorBatch batch : all) batch.update(accumulated);
+        accumulated = 0f;
+        frames = 0;
+    }
+
+    /** Frees every slot, to be called when the world is unloaded. */
+    public static void clearAll() {
+        for (RotorBatch batch : all) batch.clear();
+        accumulated = 0f;
+        frames = 0;
+    }
+}
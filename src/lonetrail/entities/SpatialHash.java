@@ -0,0 +1,138 @@
+package lonetrail.entities;
+
+import arc.func.*;
+import arc.math.*;
+import arc.struct.*;
+
+import java.util.*;
+
+/**
+ * A uniform grid of entity IDs, hashed by cell so it doesn't depend on the world size. Every entry lives in a slot of
+ * flat arrays, and entries in the same cell are linked through their slots, so moving, removing and querying entries
+ * doesn't allocate. Instances are generated for {@code @Indexed} entity definitions and kept up to date by them.
+ */
+public class SpatialHash {
+    public final float cellSize;
+
+    /** Cell key to its first slot. */
+    private final IntIntMap cells = new IntIntMap();
+    private final IntSeq free = new IntSeq();
+
+    private int[] ids = new int[16], cellOf = new int[16], next = new int[16], prev = new int[16];
+    private float[] xs = new float[16], ys = new float[16];
+    private int size, used;
+
+    public SpatialHash(float cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /** @return The slot the entry was put in, to be passed to {@link #move(int, float, float)} and {@link #remove(int, int)} */
+    public int insert(int id, float x, float y) {
+        int slot;
+        if (free.isEmpty()) {
+            if (used == ids.length) grow();
+            slot = used++;
+        } else {
+            slot = free.pop();
+        }
+
+        ids[slot] = id;
+        xs[slot] = x;
+        ys[slot] = y;
+        link(slot, key(x, y));
+
+        size++;
+        return slot;
+    }
+
+    public void move(int slot, float x, float y) {
+        xs[slot] = x;
+        ys[slot] = y;
+
+        int key = key(x, y);
+        if (key != cellOf[slot]) {
+            unlink(slot);
+            link(slot, key);
+        }
+    }
+
+    /** Removes the entry, unless the slot isn't the given ID's anymore because the hash was cleared since it was inserted. */
+    public void remove(int slot, int id) {
+        if (slot < 0 || slot >= used || ids[slot] != id) return;
+
+        unlink(slot);
+        ids[slot] = -1;
+        free.add(slot);
+        size--;
+    }
+
+    /** Calls {@code cons} with the ID of every entry within {@code radius} of the given position. */
+    public void nearby(float x, float y, float radius, IntCons cons) {
+        int minX = cell(x - radius), maxX = cell(x + radius), minY = cell(y - radius), maxY = cell(y + radius);
+        float r2 = radius * radius;
+
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                for (int slot = cells.get(pack(cx, cy), -1); slot != -1; slot = next[slot]) {
+                    if (Mathf.dst2(x, y, xs[slot], ys[slot]) <= r2) cons.get(ids[slot]);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        cells.clear();
+        free.clear();
+        size = used = 0;
+    }
+
+    int cell(float coord) {
+        return (int) Math.floor(coord / cellSize);
+    }
+
+    int key(float x, float y) {
+        return pack(cell(x), cell(y));
+    }
+
+    static int pack(int cx, int cy) {
+        return (cx & 0xffff) | (cy << 16);
+    }
+
+    void link(int slot, int key) {
+        int head = cells.get(key, -1);
+
+        cellOf[slot] = key;
+        prev[slot] = -1;
+        next[slot] = head;
+        if (head != -1) prev[head] = slot;
+
+        cells.put(key, slot);
+    }
+
+    void unlink(int slot) {
+        int p = prev[slot], n = next[slot];
+        if (n != -1) prev[n] = p;
+
+        if (p != -1) {
+            next[p] = n;
+        } else if (n != -1) {
+            cells.put(cellOf[slot], n);
+        } else {
+            cells.remove(cellOf[slot], -1);
+        }
+    }
+
+    void grow() {
+        int cap = ids.length * 2;
+        ids = Arrays.copyOf(ids, cap);
+        cellOf = Arrays.copyOf(cellOf, cap);
+        next = Arrays.copyOf(next, cap);
+        prev = Arrays.copyOf(prev, cap);
+        xs = Arrays.copyOf(xs, cap);
+        ys = Arrays.copyOf(ys, cap);
+    }
+}
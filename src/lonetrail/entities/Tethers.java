@@ -0,0 +1,164 @@
+package lonetrail.entities;
+
+import arc.struct.*;
+import arc.util.*;
+import mindustry.game.*;
+import mindustry.gen.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Keeps track of units tethered to another unit or a building, grouped by their owner. Only the owners are checked once
+ * per tick rather than every dependent looking its owner up: dependents are only walked when their owner got removed or
+ * switched teams, and are then despawned in one batch. A dependent tethered to an owner of another team is despawned
+ * on the next update.
+ */
+public final class Tethers {
+    private static final IntMap<Tether> units = new IntMap<>(), buildings = new IntMap<>();
+    private static final Seq<Tether> tethers = new Seq<>(false);
+    /** Dependents without an owner, despawned on the next update unless they get one until then. */
+    private static final ObjectSet<Unit> orphans = new ObjectSet<>();
+    /** Dependents tethered to an owner of another team, despawned on the next update unless they get untethered. */
+    private static final ObjectSet<Unit> strays = new ObjectSet<>();
+    private static final Seq<Unit> despawning = new Seq<>(false);
+
+    private Tethers() {
+        throw new AssertionError();
+    }
+
+    public static void tether(Unit dependent, @Nullable Unit owner) {
+        if (owner == null) {
+            orphans.add(dependent);
+        } else {
+            Tether tether = units.get(owner.id);
+            if (tether == null) units.put(owner.id, tether = add(new Tether(owner, null)));
+
+            tether.add(dependent);
+        }
+    }
+
+    public static void tether(Unit dependent, @Nullable Building owner) {
+        if (owner == null) {
+            orphans.add(dependent);
+        } else {
+            Tether tether = buildings.get(owner.id);
+            if (tether == null) buildings.put(owner.id, tether = add(new Tether(null, owner)));
+
+            tether.add(dependent);
+        }
+    }
+
+    public static void untether(Unit dependent, @Nullable Unit owner) {
+        if (owner == null) {
+            orphans.remove(dependent);
+        } else {
+            strays.remove(dependent);
+            remove(units, owner.id, dependent);
+        }
+    }
+
+    public static void untether(Unit dependent, @Nullable Building owner) {
+        if (owner == null) {
+            orphans.remove(dependent);
+        } else {
+            strays.remove(dependent);
+            remove(buildings, owner.id, dependent);
+        }
+    }
+
+    /**
+     * Despawns the dependents of every owner that isn't valid anymore or switched teams since the last update. Only does
+     * anything on the server; called after each game update, so never while the game is paused.
+     */
+    public static void update() {
+        if (net.client()) return;
+
+        for (int i = tethers.size - 1; i >= 0; i--) {
+            Tether tether = tethers.get(i);
+            if (!tether.valid()) {
+                despawning.addAll(tether.dependents);
+
+                tethers.remove(i);
+                (tether.unit != null ? units : buildings).remove(tether.id());
+            } else {
+                Team team = tether.team();
+                if (team == tether.team) continue;
+
+                tether.team = team;
+                for (Unit dependent : tether.dependents) {
+                    if (dependent.team != team) despawning.add(dependent);
+                }
+            }
+        }
+
+        for (Unit unit : orphans) despawning.add(unit);
+        for (Unit unit : strays) despawning.add(unit);
+        orphans.clear();
+        strays.clear();
+
+        // Despawning removes the units, which untethers them from owners that aren't registered anymore.
+        for (Unit unit : despawning) Call.unitDespawn(unit);
+        despawning.clear();
+    }
+
+    public static int owners() {
+        return tethers.size;
+    }
+
+    /** Forgets every tether, to be called when the world is unloaded. */
+    public static void clear() {
+        units.clear();
+        buildings.clear();
+        tethers.clear();
+        orphans.clear();
+        strays.clear();
+        despawning.clear();
+    }
+
+    private static Tether add(Tether tether) {
+        tethers.add(tether);
+        return tether;
+    }
+
+    private static void remove(IntMap<Tether> map, int id, Unit dependent) {
+        Tether tether = map.get(id);
+        if (tether == null) return;
+
+        tether.dependents.remove(dependent, true);
+        if (tether.dependents.isEmpty()) {
+            map.remove(id);
+            tethers.remove(tether, true);
+        }
+    }
+
+    static class Tether {
+        final @Nullable Unit unit;
+        final @Nullable Building building;
+        final Seq<Unit> dependents = new Seq<>(false, 4);
+        /** The owner's team as of the last update. */
+        Team team;
+
+        Tether(@Nullable Unit unit, @Nullable Building building) {
+            this.unit = unit;
+            this.building = building;
+            team = team();
+        }
+
+        void add(Unit dependent) {
+            dependents.add(dependent);
+            if (dependent.team != team) strays.add(dependent);
+        }
+
+        int id() {
+            return unit != null ? unit.id : building.id;
+        }
+
+        Team team() {
+            return unit != null ? unit.team : building.team;
+        }
+
+        boolean valid() {
+            return unit != null ? unit.isValid() : building.isValid();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package lonetrail.entities;
+
+import arc.struct.*;
+import arc.util.*;
+import mindustry.gen.*;
+
+/**
+ * Expires timed entities in bulk. Entities are put in a slot for the tick they expire at: a fine wheel holds the next
+ * {@link #fineSlots} ticks, a coarse wheel the ones after in spans of {@link #fineSlots} ticks, and anything further
+ * away waits in an overflow list. Coarse slots and the overflow list are spread into the finer ones as time reaches
+ * them, so every entity is touched a constant number of times no matter how long it lives.
+ * <p>
+ * Entities are checked again once their slot comes due, and rescheduled if their time or lifetime was changed in the
+ * meantime; entities that were removed in the meantime are dropped, as are slots of entities that were scheduled again
+ * since. Coarse slots and the overflow list drop those too whenever they're spread.
+ */
+public final class TimerWheel {
+    static final int fineBits = 8, fineSlots = 1 << fineBits, fineMask = fineSlots - 1;
+    static final int coarseSlots = 64, coarseMask = coarseSlots - 1;
+
+    private static final Bucket[] fine = new Bucket[fineSlots], coarse = new Bucket[coarseSlots];
+    private static final Bucket overflow = new Bucket(), due = new Bucket();
+    /** Tick every entity with a pending slot is due at; older slots of pooled entities that were added again are stale. */
+    private static final ObjectIntMap<Entityc> scheduled = new ObjectIntMap<>();
+    private static int tick = -1;
+
+    static {
+        for (int i = 0; i < fineSlots; i++) fine[i] = new Bucket();
+        for (int i = 0; i < coarseSlots; i++) coarse[i] = new Bucket();
+    }
+
+    private TimerWheel() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Expires the entity in {@code ticks} ticks, removing it or killing it if it's a {@link TimedKillc}. Replaces the slot
+     * it already had, so pooled entities that are added again with a shorter lifetime still expire in time.
+     */
+    public static void schedule(Entityc entity, float ticks) {
+        if (tick == -1) tick = (int) Time.time;
+
+        scheduled.put(entity, put(entity, at(ticks)));
+    }
+
+    public static void update() {
+        if (tick == -1) return;
+
+        int now = (int) Time.time;
+        while (tick < now) {
+            tick++;
+
+            if ((tick & fineMask) == 0) {
+                // The overflow list is checked every span so nothing in it can skip past the coarse wheel.
+                cascade(overflow);
+                cascade(coarse[(tick >>> fineBits) & coarseMask]);
+            }
+
+            Bucket bucket = fine[tick & fineMask];
+            if (bucket.entities.isEmpty()) continue;
+
+            // Expiring may schedule other entities into this very slot, so drain it first.
+            due.addAll(bucket);
+            bucket.clear();
+
+            for (int i = 0; i < due.entities.size; i++) expire(due.entities.get(i), due.ticks.get(i));
+            due.clear();
+        }
+    }
+
+    public static int size() {
+        return scheduled.size;
+    }
+
+    /** Forgets every scheduled entity, to be called when the world is unloaded. */
+    public static void clear() {
+        for (Bucket bucket : fine) bucket.clear();
+        for (Bucket bucket : coarse) bucket.clear();
+        overflow.clear();
+        due.clear();
+        scheduled.clear();
+        tick = -1;
+    }
+
+    static void expire(Entityc entity, int at) {
+        // The entity was scheduled again, into another slot.
+        if (scheduled.get(entity, -1) != at) return;
+
+        if (!entity.isAdded()) {
+            scheduled.remove(entity);
+            return;
+        }
+
+        float remaining =
+                entity instanceof Timedc t ? t.lifetime() - t.time() :
+                entity instanceof TimedKillc t ? t.lifetime() - t.time() :
+                0f;
+
+        if (remaining > 0.0001f) {
+            scheduled.put(entity, put(entity, at(remaining)));
+            return;
+        }
+
+        scheduled.remove(entity);
+        if (entity instanceof TimedKillc && entity instanceof Healthc h) {
+            h.kill();
+        } else {
+            entity.remove();
+        }
+    }
+
+    static int at(float ticks) {
+        return (int) Math.ceil(Time.time + Math.max(ticks, 0f));
+    }
+
+    /** @return The tick the entity was scheduled at */
+    static int put(Entityc entity, int at) {
+        // Never schedule into the past; due entities go into the next slot.
+        at = Math.max(at, tick + 1);
+
+        int delta = at - tick;
+        if (delta < fineSlots) {
+            fine[at & fineMask].add(entity, at);
+        } else if (delta < fineSlots * (coarseSlots - 1)) {
+            coarse[(at >>> fineBits) & coarseMask].add(entity, at);
+        } else {
+            overflow.add(entity, at);
+        }
+
+        return at;
+    }
+
+    static void cascade(Bucket bucket) {
+        if (bucket.entities.isEmpty()) return;
+
+        due.addAll(bucket);
+        bucket.clear();
+
+        for (int i = 0; i < due.entities.size; i++) {
+            Entityc entity = due.entities.get(i);
+            int at = due.ticks.get(i);
+
+            // Slots of entities that were scheduled again or removed since aren't carried along, so the wheel doesn't
+            // keep them reachable until their original tick.
+            if (scheduled.get(entity, -1) != at) continue;
+            if (!entity.isAdded()) {
+                scheduled.remove(entity);
+                continue;
+            }
+
+            int moved = put(entity, at);
+
+            // Slots due this very tick are moved to the next one, which the entity's current slot has to follow.
+            if (moved != at) scheduled.put(entity, moved);
+        }
+        due.clear();
+    }
+
+    static class Bucket {
+        final Seq<Entityc> entities = new Seq<>(false);
+        final IntSeq ticks = new IntSeq();
+
+        void add(Entityc entity, int at) {
+            entities.add(entity);
+            ticks.add(at);
+        }
+
+        void addAll(Bucket other) {
+            entities.addAll(other.entities);
+            ticks.addAll(other.ticks);
+        }
+
+        void clear() {
+            entities.clear();
+            ticks.clear();
+        }
+    }
+}
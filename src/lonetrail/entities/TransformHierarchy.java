@@ -0,0 +1,221 @@
+package lonetrail.entities;
+
+import arc.math.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.gen.*;
+import mindustry.world.blocks.*;
+
+/**
+ * Moves child entities along with their parents in one pass after every entity has updated, so children never lag a
+ * frame behind. Children are grouped by parent, so every parent's rotation is only turned into a sine and cosine once
+ * per tick, and groups are kept in levels by depth, so children of children follow their already-moved parents. The
+ * parent and offsets are read from every child on each update, so changing them after the child was added still works.
+ */
+public final class TransformHierarchy {
+    /** Chains deeper than this are most likely cyclic, and are treated as if they were this deep. */
+    static final int maxDepth = 16;
+
+    @SuppressWarnings("unchecked")
+    private static final Seq<Group>[] levels = new Seq[maxDepth + 1];
+    private static final ObjectMap<Posc, Group> groups = new ObjectMap<>();
+    private static final ObjectMap<Childc, Link> byChild = new ObjectMap<>();
+    /** Children that currently have no parent, checked every update in case they get one. */
+    private static final Seq<Link> loose = new Seq<>(false);
+    /** Whether a child changed its parent, which may change the depth of the groups below it. */
+    private static boolean dirty;
+
+    static {
+        for (int i = 0; i < levels.length; i++) levels[i] = new Seq<>(false);
+    }
+
+    private TransformHierarchy() {
+        throw new AssertionError();
+    }
+
+    /** Starts moving the child along with its parent, once it has one. */
+    public static void add(Childc child) {
+        remove(child);
+
+        Link link = new Link(child);
+        byChild.put(child, link);
+        attach(link, child.parent());
+    }
+
+    public static void remove(Childc child) {
+        Link link = byChild.remove(child);
+        if (link != null) detach(link);
+    }
+
+    public static void update() {
+        if (dirty) {
+            relevel();
+            dirty = false;
+        }
+
+        for (int i = loose.size - 1; i >= 0; i--) {
+            Link link = loose.items[i];
+            if (link.child.parent() != null) reparent(link);
+        }
+
+        for (Seq<Group> level : levels) {
+            // Backwards, as children that changed parents are moved out of their group, which may remove it.
+            for (int g = level.size - 1; g >= 0; g--) {
+                Group group = level.items[g];
+                Posc parent = group.parent;
+
+                float px = parent.getX(), py = parent.getY();
+                float rot = parent instanceof Rotc r ? r.rotation() : parent instanceof RotBlock b ? b.buildRotation() : 0f;
+                float cos = Mathf.cosDeg(rot), sin = Mathf.sinDeg(rot);
+
+                for (int i = group.links.size - 1; i >= 0; i--) {
+                    Link link = group.links.items[i];
+                    Childc child = link.child;
+
+                    if (child.parent() != parent) {
+                        reparent(link);
+                        continue;
+                    }
+
+                    if (child.rotWithParent()) {
+                        // Children that rotate with parents that can't rotate stay where they are.
+                        if (!group.rotates) continue;
+
+                        link.offset(child);
+                        child.set(px + link.offsetX * cos - link.offsetY * sin, py + link.offsetX * sin + link.offsetY * cos);
+                        child.rotation(rot + child.offsetRot());
+                    } else {
+                        child.set(px + child.offsetX(), py + child.offsetY());
+                    }
+                }
+            }
+        }
+    }
+
+    public static int size() {
+        return byChild.size;
+    }
+
+    /** Forgets every link, to be called when the world is unloaded. */
+    public static void clear() {
+        for (Seq<Group> level : levels) level.clear();
+        groups.clear();
+        byChild.clear();
+        loose.clear();
+        dirty = false;
+    }
+
+    static void reparent(Link link) {
+        detach(link);
+        attach(link, link.child.parent());
+        dirty = true;
+    }
+
+    static void attach(Link link, @Nullable Posc parent) {
+        if (parent == null) {
+            link.group = null;
+            link.index = loose.size;
+            loose.add(link);
+            return;
+        }
+
+        Group group = groups.get(parent);
+        if (group == null) {
+            group = new Group(parent);
+            groups.put(parent, group);
+            level(group, depth(parent));
+        }
+
+        link.group = group;
+        link.index = group.links.size;
+        group.links.add(link);
+    }
+
+    /** Removes the link by moving the last one of its group into its place. */
+    static void detach(Link link) {
+        Group group = link.group;
+        Seq<Link> from = group == null ? loose : group.links;
+
+        from.remove(link.index);
+        if (link.index < from.size) from.items[link.index].index = link.index;
+
+        if (group != null && group.links.isEmpty()) {
+            groups.remove(group.parent);
+            unlevel(group);
+        }
+    }
+
+    static void level(Group group, int depth) {
+        Seq<Group> level = levels[depth];
+        group.depth = depth;
+        group.index = level.size;
+        level.add(group);
+    }
+
+    static void unlevel(Group group) {
+        Seq<Group> level = levels[group.depth];
+        level.remove(group.index);
+        if (group.index < level.size) level.items[group.index].index = group.index;
+    }
+
+    /** Moves every group whose depth changed to its new level. */
+    static void relevel() {
+        for (Group group : groups.values()) {
+            int depth = depth(group.parent);
+            if (depth != group.depth) {
+                unlevel(group);
+                level(group, depth);
+            }
+        }
+    }
+
+    static int depth(Posc parent) {
+        int depth = 0;
+        while (parent instanceof Childc c && c.parent() != null && depth < maxDepth) {
+            parent = c.parent();
+            depth++;
+        }
+
+        return depth;
+    }
+
+    static class Group {
+        final Posc parent;
+        final boolean rotates;
+        final Seq<Link> links = new Seq<>(false, 4);
+        int depth, index;
+
+        Group(Posc parent) {
+            this.parent = parent;
+            rotates = parent instanceof Rotc || parent instanceof RotBlock;
+        }
+    }
+
+    static class Link {
+        final Childc child;
+        @Nullable Group group;
+        int index;
+
+        /** The child's offsets the pre-rotated ones were computed from. */
+        float x = Float.NaN, y, pos;
+        float offsetX, offsetY;
+
+        Link(Childc child) {
+            this.child = child;
+        }
+
+        /** Pre-rotates the child's offset by its positional offset angle, if that or the offset changed. */
+        void offset(Childc child) {
+            float x = child.offsetX(), y = child.offsetY(), pos = child.offsetPos();
+            if (x == this.x && y == this.y && pos == this.pos) return;
+
+            this.x = x;
+            this.y = y;
+            this.pos = pos;
+
+            float cos = Mathf.cosDeg(pos), sin = Mathf.sinDeg(pos);
+            offsetX = x * cos - y * sin;
+            offsetY = x * sin + y * cos;
+        }
+    }
+}
@@ -5,17 +5,24 @@ import arc.util.*;
 import mindustry.gen.*;
 import mindustry.type.*;
 import lonetrail.annotations.Annotations.*;
-import lonetrail.entities.*;
-import lonetrail.entities.Rotor.*;
 import lonetrail.type.unit.*;
 
 import static mindustry.Vars.*;
 
 @EntityComponent
 abstract class CopterComp implements Unitc {
-    transient RotorMount[] rotors;
+    /** Slot in the unit type's {@link lonetrail.entities.RotorBatch}, or -1 if it has no rotors. */
+    transient int rotorSlot = -1;
     transient float rotorSpeedScl = 1f;
 
+    /**
+     * Rotor speed scale when it last started changing, the one it's approaching since, and the time that happened at.
+     * Only used by {@link LUnitType#timedRotors}, which computes rotor angles from these instead of spinning them.
+     */
+    transient float rotorScaleFrom = 1f, rotorScaleTarget = 1f, rotorScaleTime;
+    /** Ticks the rotors would have spun at full speed for until {@link #rotorScaleTime}; a double, as it only grows. */
+    transient double rotorTravel;
+
     @Import UnitType type;
     @Import boolean dead;
     @Import float health, rotation;
@@ -23,35 +30,62 @@ abstract class CopterComp implements Unitc {
 
     @Override
     public void add() {
-        if (type instanceof LUnitType tType) {
-            rotors = new RotorMount[tType.rotors.size];
-            for (int i = 0; i < rotors.length; i++) {
-                Rotor rotor = tType.rotors.get(i);
-                rotors[i] = new RotorMount(rotor);
-                rotors[i].rotorRot = rotor.rotOffset;
-                rotors[i].rotorShadeRot = rotor.rotOffset;
-            }
-        }
+        if (type instanceof LUnitType tType && tType.rotorBatch != null) rotorSlot = tType.rotorBatch.add(id);
+        rotorScaleTime = Time.time;
+    }
+
+    @Override
+    public void remove() {
+        if (rotorSlot != -1 && type instanceof LUnitType tType && tType.rotorBatch != null) tType.rotorBatch.remove(rotorSlot, id);
+        rotorSlot = -1;
     }
 
     @Override
     public void update() {
         if (type instanceof LUnitType tType) {
-            if (dead || health < 0f) {
-                if (!net.client() || isLocal()) rotation += tType.fallRotateSpeed * Mathf.signs[id % 2] * Time.delta;
+            boolean falling = dead || health < 0f;
+            if (falling && (!net.client() || isLocal())) rotation += tType.fallRotateSpeed * Mathf.signs[id % 2] * Time.delta;
 
-                rotorSpeedScl = Mathf.lerpDelta(rotorSpeedScl, 0f, tType.rotorDeathSlowdown);
-            } else {
-                rotorSpeedScl = Mathf.lerpDelta(rotorSpeedScl, 1f, tType.rotorDeathSlowdown);
-            }
+            if (tType.timedRotors) {
+                // Only changes of the speed scale are recorded; the angles follow from them while drawing.
+                float target = falling ? 0f : 1f;
+                if (target != rotorScaleTarget) {
+                    rotorTravel = rotorTravelAt(Time.time);
+                    rotorScaleFrom = rotorScaleAt(Time.time);
+                    rotorScaleTarget = target;
+                    rotorScaleTime = Time.time;
+                }
 
-            for (RotorMount rotor : rotors) {
-                rotor.rotorRot += rotor.rotor.speed * rotorSpeedScl * Time.delta;
-                rotor.rotorRot %= 360f;
+                // Kept up to date for anything reading the speed scale, until it has settled.
+                if (rotorSpeedScl != rotorScaleTarget) {
+                    rotorSpeedScl = rotorScaleAt(Time.time);
+                    if (Math.abs(rotorSpeedScl - rotorScaleTarget) < 0.001f) rotorSpeedScl = rotorScaleTarget;
+                }
+            } else {
+                rotorSpeedScl = Mathf.lerpDelta(rotorSpeedScl, falling ? 0f : 1f, tType.rotorDeathSlowdown);
 
-                rotor.rotorShadeRot += rotor.rotor.shadeSpeed * Time.delta;
-                rotor.rotorShadeRot %= 360f;
+                // The rotors themselves are spun by the batch while drawing.
+                if (rotorSlot != -1) tType.rotorBatch.scale(rotorSlot, rotorSpeedScl);
             }
         }
     }
+
+    /** @return The rotor speed scale at the given time, following the same curve {@link Mathf#lerpDelta(float, float, float)} would */
+    public float rotorScaleAt(float time) {
+        float slowdown = type instanceof LUnitType tType ? tType.rotorDeathSlowdown : 1f;
+        if (slowdown <= 0f) return rotorScaleFrom;
+        if (slowdown >= 1f) return rotorScaleTarget;
+
+        return rotorScaleTarget + (rotorScaleFrom - rotorScaleTarget) * Mathf.pow(1f - slowdown, time - rotorScaleTime);
+    }
+
+    /** @return Ticks the rotors would have spun at full speed for until the given time, integrating {@link #rotorScaleAt(float)} */
+    public double rotorTravelAt(float time) {
+        float slowdown = type instanceof LUnitType tType ? tType.rotorDeathSlowdown : 1f, elapsed = time - rotorScaleTime;
+        if (slowdown <= 0f) return rotorTravel + rotorScaleFrom * elapsed;
+        if (slowdown >= 1f) return rotorTravel + rotorScaleTarget * elapsed;
+
+        float decay = -(float) Math.log(1f - slowdown);
+        return rotorTravel + rotorScaleTarget * elapsed + (rotorScaleFrom - rotorScaleTarget) * (1f - Mathf.pow(1f - slowdown, elapsed)) / decay;
+    }
 }
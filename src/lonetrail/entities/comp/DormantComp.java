@@ -0,0 +1,159 @@
+package lonetrail.entities.comp;
+
+import arc.math.geom.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.ai.*;
+import mindustry.ai.types.*;
+import mindustry.content.*;
+import mindustry.entities.units.*;
+import mindustry.gen.*;
+import mindustry.type.*;
+import mindustry.world.*;
+import mindustry.world.blocks.environment.*;
+import lonetrail.annotations.Annotations.*;
+import lonetrail.annotations.Annotations.Resolve.*;
+import lonetrail.type.unit.*;
+
+/**
+ * Puts idle units to sleep, skipping their whole {@code update()} until something wakes them up. Components may
+ * contribute to {@link #canSleep()}; every contribution has to agree for the unit to fall asleep. Sleeping units still
+ * check what they stand on and their command every tick, and types can opt out with {@link LUnitType#dormant}.
+ */
+@EntityComponent
+abstract class DormantComp implements Unitc {
+    /** Ticks a unit has to stay idle for before falling asleep. */
+    static final float sleepDelay = 120f;
+    /** Ticks between the updates a sleeping unit still gets, so its controller can decide to move again. */
+    static final float checkInterval = 30f;
+
+    transient boolean sleeping;
+    transient float idleTime, sleepTime;
+
+    /** Command the unit had when it fell asleep; any change to it wakes the unit up. */
+    transient @Nullable UnitCommand sleepCommand;
+    transient @Nullable Teamc sleepAttack;
+    transient @Nullable Vec2 sleepTarget;
+
+    @Import UnitType type;
+    @Import boolean dead;
+    @Import Vec2 vel;
+    @Import Seq<StatusEntry> statuses;
+
+    @Combine
+    public boolean canSleep() {
+        @Resolve(Method.and) boolean result = true;
+        return result &&
+                !dead && !isPlayer() && !isShooting() && !activelyBuilding() && !mining() &&
+                vel.isZero(0.001f) && statuses.isEmpty() && type.abilities.isEmpty() &&
+                (!(type instanceof LUnitType t) || t.dormant) &&
+                !(this instanceof Payloadc pay && pay.hasPayload()) && !exposed();
+    }
+
+    /** @return Whether the floor or tile the unit stands on acts on it, which its update can't be skipped for */
+    public boolean exposed() {
+        Tile tile = tileOn();
+        if (tile == null) return false;
+        if (!canPassOn()) return true;
+        if (!isGrounded() || type.hovering) return false;
+
+        Floor floor = floorOn(), drown = drownFloor();
+        return floor.damageTaken > 0f || (floor.status != StatusEffects.none && !isImmune(floor.status)) ||
+                (drown != null && drown.isLiquid && drown.drownTime > 0f);
+    }
+
+    /** @return Whether the unit's command, or the position or target it was commanded to, changed since it fell asleep */
+    public boolean commanded() {
+        if (!(controller() instanceof CommandAI ai)) return false;
+
+        Vec2 target = ai.targetPos;
+        return ai.command != sleepCommand || ai.attackTarget != sleepAttack ||
+                (target == null ? sleepTarget != null : sleepTarget == null || !target.equals(sleepTarget));
+    }
+
+    @Wrap("update()")
+    boolean awake() {
+        if (!sleeping) return true;
+
+        // The environmental part of the update keeps running; anything it does to the unit wakes it up.
+        Tile tile = tileOn();
+        if (tile != null && tile.build != null && isGrounded() && !type.hovering) tile.build.unitOn(self());
+        if (exposed() || commanded() || !vel.isZero(0.001f)) {
+            wake();
+            return true;
+        }
+
+        sleepTime += Time.delta;
+        if (sleepTime >= checkInterval) {
+            sleepTime %= checkInterval;
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    @MethodPriority(100)
+    public void update() {
+        if (!canSleep()) {
+            wake();
+        } else if (!sleeping) {
+            idleTime += Time.delta;
+            if (idleTime >= sleepDelay) sleep();
+        }
+    }
+
+    public void sleep() {
+        if (sleeping) return;
+
+        sleeping = true;
+        sleepTime = 0f;
+
+        if (controller() instanceof CommandAI ai) {
+            sleepCommand = ai.command;
+            sleepAttack = ai.attackTarget;
+            sleepTarget = ai.targetPos == null ? null : ai.targetPos.cpy();
+        }
+    }
+
+    public void wake() {
+        idleTime = 0f;
+        if (!sleeping) return;
+
+        sleeping = false;
+        sleepCommand = null;
+        sleepAttack = null;
+        sleepTarget = null;
+    }
+
+    @Override
+    public void damage(float amount) {
+        wake();
+    }
+
+    @Override
+    public void apply(StatusEffect effect, float duration) {
+        // Statuses apply the floor's effect every tick, which is usually none.
+        if (effect != null && effect != StatusEffects.none && !isImmune(effect)) wake();
+    }
+
+    @Override
+    public void impulse(float x, float y) {
+        wake();
+    }
+
+    @Override
+    public void controller(UnitController next) {
+        wake();
+    }
+
+    @Override
+    public void afterSync() {
+        wake();
+    }
+
+    @Override
+    public void remove() {
+        wake();
+    }
+}
@@ -2,6 +2,7 @@ package lonetrail.fetched;
 
 import arc.util.*;
 import lonetrail.annotations.Annotations.*;
+import lonetrail.entities.*;
 import mindustry.game.*;
 import mindustry.gen.*;
 import mindustry.type.*;
@@ -11,13 +12,49 @@ import mindustry.type.*;
 abstract class BuildingTetherComp implements Unitc{
     @Import UnitType type;
     @Import Team team;
+    @Import boolean added;
 
     public @Nullable Building building;
 
-    @Override
-    public void update(){
-        if(building == null || !building.isValid() || building.team != team){
-            Call.unitDespawn(self());
+    //the building this unit is currently registered to in Tethers.
+    transient @Nullable Building tetheredBuilding;
+    transient boolean buildingTethered;
+
+    public void building(@Nullable Building building){
+        this.building = building;
+        if(added) tetherBuilding();
+    }
+
+    void tetherBuilding(){
+        if(buildingTethered){
+            if(tetheredBuilding == building) return;
+            Tethers.untether(self(), tetheredBuilding);
         }
+
+        Tethers.tether(self(), building);
+        tetheredBuilding = building;
+        buildingTethered = true;
+    }
+
+    @Override
+    public void afterRead(){
+        if(added) tetherBuilding();
+    }
+
+    @Override
+    public void afterSync(){
+        if(added) tetherBuilding();
+    }
+
+    @Override
+    public void add(){
+        tetherBuilding();
+    }
+
+    @Override
+    public void remove(){
+        if(buildingTethered) Tethers.untether(self(), tetheredBuilding);
+        tetheredBuilding = null;
+        buildingTethered = false;
     }
 }
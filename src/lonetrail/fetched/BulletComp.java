@@ -27,7 +27,7 @@ abstract class BulletComp implements Timedc, Damagec, Hitboxc, Teamc, Posc, Draw
     @Import float x, y, damage, lastX, lastY, time, lifetime;
     @Import Vec2 vel;
 
-    IntSeq collided = new IntSeq(6);
+    @Lazy IntSeq collided = new IntSeq(6);
     BulletType type;
 
     Object data;
@@ -78,7 +78,7 @@ abstract class BulletComp implements Timedc, Damagec, Hitboxc, Teamc, Posc, Draw
             type.despawned(self());
         }
         type.removed(self());
-        collided.clear();
+        if(collided != null) collided.clear();
     }
 
     @Override
@@ -93,7 +93,7 @@ abstract class BulletComp implements Timedc, Damagec, Hitboxc, Teamc, Posc, Draw
     }
 
     public boolean hasCollided(int id){
-        return collided.size != 0 && collided.contains(id);
+        return collided != null && collided.size != 0 && collided.contains(id);
     }
 
     @Replace
@@ -1,8 +1,8 @@
 package lonetrail.fetched;
 
-import arc.math.*;
 import arc.util.*;
 import lonetrail.annotations.Annotations.*;
+import lonetrail.entities.*;
 import mindustry.gen.*;
 import mindustry.world.blocks.*;
 
@@ -29,25 +29,13 @@ abstract class ChildComp implements Posc, Rotc{
                 }
             }
         }
+
+        //positions are updated by TransformHierarchy once every entity has updated
+        TransformHierarchy.add(self());
     }
 
     @Override
-    public void update(){
-        if(parent != null){
-            if(rotWithParent){
-                if(parent instanceof Rotc r){
-                    x = parent.getX() + Angles.trnsx(r.rotation() + offsetPos, offsetX, offsetY);
-                    y = parent.getY() + Angles.trnsy(r.rotation() + offsetPos, offsetX, offsetY);
-                    rotation = r.rotation() + offsetRot;
-                }else if(parent instanceof RotBlock rot){
-                    x = parent.getX() + Angles.trnsx(rot.buildRotation() + offsetPos, offsetX, offsetY);
-                    y = parent.getY() + Angles.trnsy(rot.buildRotation() + offsetPos, offsetX, offsetY);
-                    rotation = rot.buildRotation() + offsetRot;
-                }
-            }else{
-                x = parent.getX() + offsetX;
-                y = parent.getY() + offsetY;
-            }
-        }
+    public void remove(){
+        TransformHierarchy.remove(self());
     }
 }
@@ -25,12 +25,14 @@ abstract class PayloadComp implements Posc, Rotc, Hitboxc, Unitc{
     @Import Team team;
     @Import UnitType type;
 
-    Seq<Payload> payloads = new Seq<>();
+    @Lazy Seq<Payload> payloads = new Seq<>();
 
     private transient @Nullable PowerGraph payloadPower;
 
     @Override
     public void update(){
+        if(payloads == null) return;
+
         if(payloadPower != null){
             payloadPower.clear();
         }
@@ -62,11 +64,11 @@ abstract class PayloadComp implements Posc, Rotc, Hitboxc, Unitc{
 
     @Override
     public void destroy(){
-        if(Vars.state.rules.unitPayloadsExplode) payloads.each(Payload::destroyed);
+        if(Vars.state.rules.unitPayloadsExplode && payloads != null) payloads.each(Payload::destroyed);
     }
 
     float payloadUsed(){
-        return payloads.sumf(p -> p.size() * p.size());
+        return payloads == null ? 0f : payloads.sumf(p -> p.size() * p.size());
     }
 
     boolean canPickup(Unit unit){
@@ -82,7 +84,7 @@ abstract class PayloadComp implements Posc, Rotc, Hitboxc, Unitc{
     }
 
     boolean hasPayload(){
-        return payloads.size > 0;
+        return payloads != null && payloads.size > 0;
     }
 
     void addPayload(Payload load){
@@ -111,7 +113,7 @@ abstract class PayloadComp implements Posc, Rotc, Hitboxc, Unitc{
     }
 
     boolean dropLastPayload(){
-        if(payloads.isEmpty()) return false;
+        if(payloads == null || payloads.isEmpty()) return false;
 
         Payload load = payloads.peek();
 
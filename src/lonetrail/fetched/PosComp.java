@@ -13,7 +13,7 @@ import static mindustry.Vars.*;
 
 @EntityComponent(write = false)
 abstract class PosComp implements Position{
-    @SyncField(true) @SyncLocal float x, y;
+    @Hot @SyncField(true) @SyncLocal float x, y;
 
     void set(float x, float y){
         this.x = x;
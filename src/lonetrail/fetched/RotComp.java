@@ -5,5 +5,5 @@ import mindustry.gen.*;
 
 @EntityComponent(write = false)
 abstract class RotComp implements Entityc{
-    @SyncField(false) @SyncLocal float rotation;
+    @Hot @SyncField(false) @SyncLocal float rotation;
 }
@@ -3,17 +3,49 @@ package lonetrail.fetched;
 import arc.math.*;
 import arc.util.*;
 import lonetrail.annotations.Annotations.*;
+import lonetrail.entities.*;
 import mindustry.gen.*;
 
 @EntityComponent(write = false)
 abstract class TimedComp implements Entityc, Scaled{
     float time, lifetime;
+    /** {@link Time#time} at which {@link #time} was zero; expiry is tracked by the {@link TimerWheel} instead of per tick. */
+    transient float spawnTime;
 
+    @Override
+    public void add(){
+        spawnTime = Time.time - time;
+        TimerWheel.schedule(self(), lifetime - time);
+    }
+
+    public float time(){
+        return Math.min(Time.time - spawnTime, lifetime);
+    }
+
+    public void time(float time){
+        this.time = time;
+        spawnTime = Time.time - time;
+    }
+
+    //the time field only counts up in entities that read it directly; store how far the others got before writing it.
+    @Insert(value = "write(arc.util.io.Writes)", after = false)
+    void storeTime(){
+        time = time();
+    }
+
+    @Insert(value = "writeSync(arc.util.io.Writes)", after = false)
+    void storeSyncTime(){
+        time = time();
+    }
+
+    //only merged into entities that read the time field directly, which have to keep counting it every tick.
     //called last so pooling and removal happens then.
+    @ExtendImport("time")
     @MethodPriority(100)
     @Override
     public void update(){
         time = Math.min(time + Time.delta, lifetime);
+        spawnTime = Time.time - time;
 
         if(time >= lifetime){
             remove();
@@ -22,6 +54,6 @@ abstract class TimedComp implements Entityc, Scaled{
 
     @Override
     public float fin(){
-        return time / lifetime;
+        return time() / lifetime;
     }
 }
@@ -3,18 +3,50 @@ package lonetrail.fetched;
 import arc.math.*;
 import arc.util.*;
 import lonetrail.annotations.Annotations.*;
+import lonetrail.entities.*;
 import mindustry.gen.*;
 
 //basically just TimedComp but kills instead of removing.
 @EntityComponent(write = false)
 abstract class TimedKillComp implements Entityc, Healthc, Scaled{
     float time, lifetime;
+    /** {@link Time#time} at which {@link #time} was zero; expiry is tracked by the {@link TimerWheel} instead of per tick. */
+    transient float spawnTime;
 
+    @Override
+    public void add(){
+        spawnTime = Time.time - time;
+        TimerWheel.schedule(self(), lifetime - time);
+    }
+
+    public float time(){
+        return Math.min(Time.time - spawnTime, lifetime);
+    }
+
+    public void time(float time){
+        this.time = time;
+        spawnTime = Time.time - time;
+    }
+
+    //the time field only counts up in entities that read it directly; store how far the others got before writing it.
+    @Insert(value = "write(arc.util.io.Writes)", after = false)
+    void storeTime(){
+        time = time();
+    }
+
+    @Insert(value = "writeSync(arc.util.io.Writes)", after = false)
+    void storeSyncTime(){
+        time = time();
+    }
+
+    //only merged into entities that read the time field directly, which have to keep counting it every tick.
     //called last so pooling and removal happens then.
+    @ExtendImport("time")
     @MethodPriority(100)
     @Override
     public void update(){
         time = Math.min(time + Time.delta, lifetime);
+        spawnTime = Time.time - time;
 
         if(time >= lifetime){
             kill();
@@ -23,6 +55,6 @@ abstract class TimedKillComp implements Entityc, Healthc, Scaled{
 
     @Override
     public float fin(){
-        return time / lifetime;
+        return time() / lifetime;
     }
 }
@@ -2,6 +2,7 @@ package lonetrail.fetched;
 
 import arc.util.*;
 import lonetrail.annotations.Annotations.*;
+import lonetrail.entities.*;
 import mindustry.game.*;
 import mindustry.gen.*;
 import mindustry.type.*;
@@ -11,29 +12,54 @@ import mindustry.type.*;
 abstract class UnitTetherComp implements Unitc{
     @Import UnitType type;
     @Import Team team;
+    @Import boolean added;
 
     //spawner unit cannot be read directly for technical reasons.
     public transient @Nullable Unit spawner;
     public int spawnerUnitId = -1;
 
+    //the spawner this unit is currently registered to in Tethers.
+    transient @Nullable Unit tetheredSpawner;
+    transient boolean spawnerTethered;
+
+    public void spawner(@Nullable Unit spawner){
+        this.spawner = spawner;
+        spawnerUnitId = spawner == null ? -1 : spawner.id;
+        if(added) tetherSpawner();
+    }
+
+    void tetherSpawner(){
+        if(spawnerTethered){
+            if(tetheredSpawner == spawner) return;
+            Tethers.untether(self(), tetheredSpawner);
+        }
+
+        Tethers.tether(self(), spawner);
+        tetheredSpawner = spawner;
+        spawnerTethered = true;
+    }
+
     @Override
     public void afterRead(){
         if(spawnerUnitId != -1) spawner = Groups.unit.getByID(spawnerUnitId);
-        spawnerUnitId = -1;
+        if(added) tetherSpawner();
     }
 
     @Override
     public void afterSync(){
-        if(spawnerUnitId != -1) spawner = Groups.unit.getByID(spawnerUnitId);
-        spawnerUnitId = -1;
+        if(spawnerUnitId != -1 && (spawner == null || spawner.id != spawnerUnitId)) spawner = Groups.unit.getByID(spawnerUnitId);
+        if(added) tetherSpawner();
     }
 
     @Override
-    public void update(){
-        if(spawner == null || !spawner.isValid() || spawner.team != team){
-            Call.unitDespawn(self());
-        }else{
-            spawnerUnitId = spawner.id;
-        }
+    public void add(){
+        tetherSpawner();
+    }
+
+    @Override
+    public void remove(){
+        if(spawnerTethered) Tethers.untether(self(), tetheredSpawner);
+        tetheredSpawner = null;
+        spawnerTethered = false;
     }
 }
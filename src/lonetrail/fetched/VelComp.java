@@ -13,7 +13,7 @@ import static mindustry.Vars.*;
 abstract class VelComp implements Posc{
     @Import float x, y;
 
-    @SyncLocal Vec2 vel = new Vec2();
+    @Hot @SyncLocal Vec2 vel = new Vec2();
 
     transient float drag = 0f;
 
@@ -1,18 +1,42 @@
 package lonetrail.type.unit;
 
+import arc.*;
 import arc.graphics.g2d.*;
 import arc.math.*;
 import arc.struct.*;
+import arc.util.*;
 import mindustry.gen.*;
 import mindustry.type.*;
 import lonetrail.entities.*;
-import lonetrail.entities.Rotor.*;
 import lonetrail.gen.*;
 
+import static mindustry.Vars.*;
+
 public class LUnitType extends UnitType {
     public final Seq<Rotor> rotors = new Seq<>(2);
     public float rotorDeathSlowdown = 0.01f;
     public float fallRotateSpeed = 2.5f;
+    /** Whether idle units of this type may fall asleep, if they're dormant entities. */
+    public boolean dormant = true;
+    /**
+     * Whether rotor angles are computed from {@link Time#time} and the unit's ID while drawing rather than spun every
+     * frame. Such copters have no per-tick rotor state at all; only changes of their rotor speed scale are recorded.
+     */
+    public boolean timedRotors = false;
+    /** Rotor angles of every copter of this type, created in {@link #init()} if it has rotors and they aren't timed. */
+    public @Nullable RotorBatch rotorBatch;
+    /**
+     * On-screen size in pixels below which rotors draw their merged blade sprite instead of every blade pass, and below
+     * which they only draw their top.
+     */
+    public float rotorMergedPixels = 32f, rotorTopPixels = 10f;
+
+    /** Position and angle of every rotor of the copter being drawn, so every pass can share them. */
+    protected float[] rotorX = {}, rotorY = {}, rotorAngle = {};
+    /** Detail tier of every rotor of the copter being drawn; one of {@link #lodCulled} to {@link #lodFull}. */
+    protected int[] rotorLod = {};
+
+    public static final int lodCulled = 0, lodTop = 1, lodMerged = 2, lodFull = 3;
 
     public LUnitType(String name) {
         super(name);
@@ -21,7 +45,11 @@ public class LUnitType extends UnitType {
     @Override
     public void init() {
         super.init();
+        initRotors();
+    }
 
+    /** Mirrors the rotors that should be and sets up their drawing state; split from {@link #init()} for benchmarks. */
+    public void initRotors() {
         Seq<Rotor> mapped = new Seq<>();
         for (Rotor rotor : rotors) {
             mapped.add(rotor);
@@ -36,65 +64,120 @@ public class LUnitType extends UnitType {
             }
         }
         rotors.set(mapped);
+        rotors.each(Rotor::init);
+
+        rotorX = new float[rotors.size];
+        rotorY = new float[rotors.size];
+        rotorAngle = new float[rotors.size];
+        rotorLod = new int[rotors.size];
+
+        if (rotors.any() && !timedRotors) rotorBatch = new RotorBatch(rotors.toArray(Rotor.class));
+    }
+
+    @Override
+    public void load() {
+        super.load();
+        rotors.each(Rotor::load);
     }
 
     @Override
     public void draw(Unit unit) {
         super.draw(unit);
 
-        if (unit instanceof Copterc) drawRotors((Unit & Copterc) unit);
+        if (unit instanceof Copterc) drawRotors((Unit & Copterc) unit, renderer.getDisplayScale());
     }
 
-    public <T extends Unit & Copterc> void drawRotors(T unit) {
+    /** Draws the rotors of the copter, given how many screen pixels a world unit currently takes. */
+    public <T extends Unit & Copterc> void drawRotors(T unit, float pixels) {
+        // Copters without a batch slot, such as ones drawn before being added, spin at full speed from the time.
+        int slot = unit.rotorSlot();
+        boolean batched = !timedRotors && slot != -1;
+
         applyColor(unit);
 
-        RotorMount[] rotors = unit.rotors();
-        for (RotorMount mount : rotors) {
-            Rotor rotor = mount.rotor;
-            float x = unit.x + Angles.trnsx(unit.rotation - 90f, rotor.x, rotor.y);
-            float y = unit.y + Angles.trnsy(unit.rotation - 90f, rotor.x, rotor.y);
+        // Timed rotors are offset by the golden angle per ID so neighbouring copters don't spin in unison; 144 of those
+        // make a whole number of turns, which keeps the offset small for high IDs.
+        double travel = timedRotors ? unit.rotorTravelAt(Time.time) : Time.time;
+        float phase = timedRotors ? (unit.id % 144) * 137.5f : 0f;
+        float alpha = Mathf.curve(unit.rotorSpeedScl(), 0.2f, 1f);
+
+        float baseRot = unit.rotation - 90f, cos = Mathf.cosDeg(baseRot), sin = Mathf.sinDeg(baseRot);
+        Core.camera.bounds(Tmp.r1);
+
+        boolean any = false;
+        for (int i = 0; i < rotors.size; i++) {
+            Rotor rotor = rotors.get(i);
+            float x = unit.x + rotor.x * cos - rotor.y * sin, y = unit.y + rotor.x * sin + rotor.y * cos;
+            float size = rotor.size * pixels, reach = Math.max(rotor.size * Mathf.sqrt2 / 2f, rotor.shadowSize / 2f);
+
+            rotorX[i] = x;
+            rotorY[i] = y;
+            rotorAngle[i] = batched ? rotorBatch.rotation(slot, i) : rotor.rotOffset + phase + wrap(rotor.speed, travel);
+            // Rotated blades reach past the shadow's box at their diagonal.
+            rotorLod[i] =
+                    !Tmp.r1.overlaps(x - reach, y - reach, reach * 2f, reach * 2f) ? lodCulled :
+                    size < rotorTopPixels ? lodTop :
+                    size < rotorMergedPixels ? lodMerged :
+                    lodFull;
+
+            any |= rotorLod[i] != lodCulled;
+        }
 
-            float alpha = Mathf.curve(unit.rotorSpeedScl(), 0.2f, 1f);
-            Draw.color(0f, 0f, 0f, rotor.shadowAlpha);
-            float rad = 1.2f;
-            float size = Math.max(rotor.bladeRegion.width, rotor.bladeRegion.height) * Draw.scl;
+        if (!any) {
+            Draw.reset();
+            return;
+        }
+
+        for (int i = 0; i < rotors.size; i++) {
+            int lod = rotorLod[i];
+            if (lod < lodMerged) continue;
 
-            Draw.rect(softShadowRegion, x, y, size * rad * Draw.xscl, size * rad * Draw.yscl);
+            Rotor rotor = rotors.get(i);
+            float x = rotorX[i], y = rotorY[i], rot = rotorAngle[i];
 
+            Draw.color(0f, 0f, 0f, rotor.shadowAlpha);
+            Draw.rect(softShadowRegion, x, y, rotor.shadowSize * Draw.xscl, rotor.shadowSize * Draw.yscl);
             Draw.color();
+
+            if (lod == lodMerged) continue;
+
             Draw.alpha(alpha * rotor.ghostAlpha);
 
-            Draw.rect(rotor.bladeGhostRegion, x, y, mount.rotorRot);
-            Draw.rect(rotor.bladeShadeRegion, x, y, mount.rotorShadeRot);
+            Draw.rect(rotor.bladeGhostRegion, x, y, rot);
+            Draw.rect(rotor.bladeShadeRegion, x, y, batched ? rotorBatch.shadeRotation(slot, i) : rotor.rotOffset + phase + wrap(rotor.shadeSpeed, Time.time));
 
             Draw.alpha(1f - alpha * rotor.bladeFade);
-            for (int j = 0; j < rotor.bladeCount; j++) {
-                Draw.rect(rotor.bladeOutlineRegion, x, y,
-                        unit.rotation - 90f
-                                + 360f / rotor.bladeCount * j
-                                + mount.rotorRot
-                );
+            for (float angle : rotor.bladeAngles) {
+                Draw.rect(rotor.bladeOutlineRegion, x, y, baseRot + angle + rot);
             }
         }
 
-        for (RotorMount mount : rotors) {
-            Rotor rotor = mount.rotor;
-            float x = unit.x + Angles.trnsx(unit.rotation - 90f, rotor.x, rotor.y);
-            float y = unit.y + Angles.trnsy(unit.rotation - 90f, rotor.x, rotor.y);
-
-            Draw.alpha(1f - Mathf.curve(unit.rotorSpeedScl(), 0.2f, 1f) * rotor.bladeFade);
-            for (int j = 0; j < rotor.bladeCount; j++) {
-                Draw.rect(rotor.bladeRegion, x, y,
-                        unit.rotation - 90f
-                                + 360f / rotor.bladeCount * j
-                                + mount.rotorRot
-                );
+        for (int i = 0; i < rotors.size; i++) {
+            int lod = rotorLod[i];
+            if (lod == lodCulled) continue;
+
+            Rotor rotor = rotors.get(i);
+            float x = rotorX[i], y = rotorY[i], rot = rotorAngle[i];
+
+            // Both tiers fade alike, so blades don't jump in opacity when switching between them.
+            Draw.alpha(1f - alpha * rotor.bladeFade);
+            if (lod == lodFull) {
+                for (float angle : rotor.bladeAngles) {
+                    Draw.rect(rotor.bladeRegion, x, y, baseRot + angle + rot);
+                }
+            } else if (lod == lodMerged) {
+                Draw.rect(rotor.bladeMergedRegion, x, y, baseRot + rot);
             }
 
             Draw.color();
-            Draw.rect(rotor.topRegion, x, y, unit.rotation - 90f);
+            Draw.rect(rotor.topRegion, x, y, baseRot);
         }
 
         Draw.reset();
     }
+
+    /** @return How far a rotor spinning at {@code speed} turned in {@code ticks}, wrapped to a turn in double precision */
+    static float wrap(float speed, double ticks) {
+        return (float) ((speed * ticks) % 360d);
+    }
 }